@@ -1,12 +1,13 @@
 
 import React, { createContext, useState, useContext, useEffect, ReactNode } from 'react';
 import { jwtDecode } from 'jwt-decode';
+import { apiLogout, onTokenRefreshed } from '../services/api';
 
 interface AuthContextType {
   token: string | null;
   isAuthenticated: boolean;
   permissionLevel: number;
-  login: (token: string) => void;
+  login: (token: string, refreshToken?: string) => void;
   logout: () => void;
 }
 
@@ -26,7 +27,8 @@ export const AuthProvider = ({ children }: { children: ReactNode }) => {
     if (storedToken) {
       try {
         const decoded = jwtDecode<DecodedToken>(storedToken);
-        if (decoded.exp * 1000 > Date.now()) {
+        // An expired access token is kept while a refresh token exists; api.ts renews it on the next call
+        if (decoded.exp * 1000 > Date.now() || localStorage.getItem('refreshToken')) {
           setToken(storedToken);
           setPermissionLevel(decoded.permissionLevel || 0);
         } else {
@@ -44,20 +46,33 @@ export const AuthProvider = ({ children }: { children: ReactNode }) => {
     }
   }, []);
 
-  const login = (newToken: string) => {
-    localStorage.setItem('token', newToken);
+  const applyToken = (newToken: string) => {
     setToken(newToken);
     try {
         const decoded = jwtDecode<DecodedToken>(newToken);
         setPermissionLevel(decoded.permissionLevel || 0);
     } catch (error) {
-        console.error("Invalid token on login:", error);
+        console.error("Invalid token:", error);
         setPermissionLevel(0);
     }
   };
 
+  // api.ts renews the access token on 401; the new token may carry a different permission level
+  useEffect(() => onTokenRefreshed(applyToken), []);
+
+  const login = (newToken: string, refreshToken?: string) => {
+    localStorage.setItem('token', newToken);
+    if (refreshToken) {
+      localStorage.setItem('refreshToken', refreshToken);
+    }
+    applyToken(newToken);
+  };
+
   const logout = () => {
+    // Best effort: revoke the tokens server-side, then clear them locally either way
+    apiLogout(localStorage.getItem('refreshToken')).catch(() => undefined);
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     setToken(null);
     setPermissionLevel(0);
   };
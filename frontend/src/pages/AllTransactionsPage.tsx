@@ -29,7 +29,9 @@ interface TransactionItem {
 
 const AllTransactionsPage: React.FC = () => {
   const [transactions, setTransactions] = useState<TransactionItem[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState<boolean>(true);
+  const [loadingMore, setLoadingMore] = useState<boolean>(false);
   const [error, setError] = useState<string | null>(null);
   const [success, setSuccess] = useState<string | null>(null);
   const [deleteDialogOpen, setDeleteDialogOpen] = useState<boolean>(false);
@@ -38,10 +40,12 @@ const AllTransactionsPage: React.FC = () => {
   const [editingTransaction, setEditingTransaction] = useState<TransactionItem | null>(null);
   const [editIsPaid, setEditIsPaid] = useState<boolean>(false);
 
+  // 重新從第一頁載入
   const fetchTransactions = async () => {
     try {
-      const data = await apiGetAllTransactions();
-      setTransactions(data);
+      const page = await apiGetAllTransactions();
+      setTransactions(page.items);
+      setNextCursor(page.nextCursor);
     } catch (err: any) {
       setError(err.message || 'Failed to fetch all transactions.');
     } finally {
@@ -49,6 +53,20 @@ const AllTransactionsPage: React.FC = () => {
     }
   };
 
+  const handleLoadMore = async () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    try {
+      const page = await apiGetAllTransactions(nextCursor);
+      setTransactions(prev => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (err: any) {
+      setError(err.message || 'Failed to fetch all transactions.');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     fetchTransactions();
   }, []);
@@ -64,7 +82,8 @@ const AllTransactionsPage: React.FC = () => {
     try {
       await apiDeleteTransaction(transactionToDelete);
       setSuccess('交易記錄已刪除');
-      await fetchTransactions(); // 重新獲取數據
+      // 只移除該筆，保留已載入的頁面
+      setTransactions(prev => prev.filter(t => t.uuid !== transactionToDelete));
       
       // 清除成功訊息
       setTimeout(() => setSuccess(null), 3000);
@@ -95,7 +114,9 @@ const AllTransactionsPage: React.FC = () => {
         isPaid: editIsPaid
       });
       setSuccess('交易記錄已更新');
-      await fetchTransactions(); // 重新獲取數據
+      // 只更新該筆，保留已載入的頁面
+      setTransactions(prev => prev.map(t =>
+        t.uuid === editingTransaction.uuid ? { ...t, isPaid: editIsPaid } : t));
       
       // 清除成功訊息
       setTimeout(() => setSuccess(null), 3000);
@@ -304,6 +325,15 @@ const AllTransactionsPage: React.FC = () => {
         </TableContainer>
       )}
 
+      {/* 下一頁：伺服器以 X-Next-Cursor 回傳游標，最後一頁不帶 */}
+      {nextCursor && (
+        <Box sx={{ display: 'flex', justifyContent: 'center', my: 3 }}>
+          <Button variant="outlined" onClick={handleLoadMore} disabled={loadingMore}>
+            {loadingMore ? <CircularProgress size={24} /> : '載入更多'}
+          </Button>
+        </Box>
+      )}
+
       {/* 編輯對話框 */}
       <Dialog open={editDialogOpen} onClose={handleEditCancel}>
         <DialogTitle>編輯交易記錄</DialogTitle>
@@ -25,7 +25,7 @@ const LoginPage: React.FC = () => {
         try {
             const data = await apiLogin(account, password);
             if (data.token) {
-                login(data.token);
+                login(data.token, data.refreshToken);
                 navigate('/'); // Redirect to a protected page on success
             } else {
                 setError('Login failed: No token received.');
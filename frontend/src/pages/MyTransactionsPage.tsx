@@ -3,7 +3,7 @@ import React, { useEffect, useState } from 'react';
 import { 
   Container, Typography, Box, CircularProgress, Alert, 
   Table, TableBody, TableCell, TableContainer, TableHead, TableRow, Paper,
-  Chip
+  Chip, Button
 } from '@mui/material';
 import { 
   Receipt, ShoppingCart, MonetizationOn, AttachMoney, 
@@ -28,14 +28,17 @@ interface TransactionItem {
 
 const MyTransactionsPage: React.FC = () => {
   const [transactions, setTransactions] = useState<TransactionItem[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState<boolean>(true);
+  const [loadingMore, setLoadingMore] = useState<boolean>(false);
   const [error, setError] = useState<string | null>(null);
 
   useEffect(() => {
     const fetchTransactions = async () => {
       try {
-        const data = await apiGetMyTransactions();
-        setTransactions(data);
+        const page = await apiGetMyTransactions();
+        setTransactions(page.items);
+        setNextCursor(page.nextCursor);
       } catch (err: any) {
         setError(err.message || 'Failed to fetch transactions.');
       } finally {
@@ -46,6 +49,20 @@ const MyTransactionsPage: React.FC = () => {
     fetchTransactions();
   }, []);
 
+  const handleLoadMore = async () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    try {
+      const page = await apiGetMyTransactions(nextCursor);
+      setTransactions(prev => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (err: any) {
+      setError(err.message || 'Failed to fetch transactions.');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const formatDate = (dateString: string) => {
     return new Date(dateString).toLocaleDateString('zh-TW', {
       year: 'numeric',
@@ -192,6 +209,15 @@ const MyTransactionsPage: React.FC = () => {
           </Table>
         </TableContainer>
       )}
+
+      {/* 下一頁：伺服器以 X-Next-Cursor 回傳游標，最後一頁不帶 */}
+      {nextCursor && (
+        <Box sx={{ display: 'flex', justifyContent: 'center', my: 3 }}>
+          <Button variant="outlined" onClick={handleLoadMore} disabled={loadingMore}>
+            {loadingMore ? <CircularProgress size={24} /> : '載入更多'}
+          </Button>
+        </Box>
+      )}
     </Container>
   );
 };
@@ -2,7 +2,57 @@
 
 const BASE_URL = 'http://localhost:8881'; // Your Spring Boot backend is running on 8881
 
-async function request(endpoint: string, options: RequestInit = {}) {
+// Access tokens are short-lived. On 401 (missing, expired or revoked token) the stored refresh
+// token is exchanged once and the request retried; parallel failures share a single refresh call.
+// 403 means insufficient permission and is never retried.
+let refreshing: Promise<boolean> | null = null;
+
+// AuthContext subscribes so its token and permission level follow a refresh
+type TokenListener = (token: string) => void;
+const tokenListeners = new Set<TokenListener>();
+
+export function onTokenRefreshed(listener: TokenListener): () => void {
+    tokenListeners.add(listener);
+    return () => {
+        tokenListeners.delete(listener);
+    };
+}
+
+async function refreshAccessToken(): Promise<boolean> {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+        return false;
+    }
+    const response = await fetch(`${BASE_URL}/auth/refresh`, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ refreshToken }),
+    });
+    if (!response.ok) {
+        // Another tab may have stored a newer refresh token meanwhile; only drop the one that failed
+        if (localStorage.getItem('refreshToken') === refreshToken) {
+            localStorage.removeItem('refreshToken');
+        }
+        return false;
+    }
+    const data = await response.json();
+    localStorage.setItem('token', data.token);
+    localStorage.setItem('refreshToken', data.refreshToken);
+    tokenListeners.forEach(listener => listener(data.token));
+    return true;
+}
+
+function refreshOnce(): Promise<boolean> {
+    if (!refreshing) {
+        refreshing = refreshAccessToken()
+            .catch(() => false)
+            .finally(() => { refreshing = null; });
+    }
+    return refreshing;
+}
+
+// Sends the request (refreshing the token once on 401) and throws on non-2xx responses
+async function send(endpoint: string, options: RequestInit = {}, retried = false): Promise<Response> {
     const url = `${BASE_URL}${endpoint}`;
 
     const token = localStorage.getItem('token');
@@ -18,19 +68,28 @@ async function request(endpoint: string, options: RequestInit = {}) {
         headers,
     };
 
-    try {
-        const response = await fetch(url, config);
-        if (!response.ok) {
-            // Try to parse error response from backend
-            let errorMessage = response.statusText;
-            try {
-                const errorData = await response.json();
-                errorMessage = errorData.message || errorMessage;
-            } catch {
-                // If parsing fails, use status text
-            }
-            throw new Error(errorMessage);
+    const response = await fetch(url, config);
+    if (response.status === 401 && !retried
+            && !endpoint.startsWith('/auth/') && await refreshOnce()) {
+        return send(endpoint, options, true);
+    }
+    if (!response.ok) {
+        // Try to parse error response from backend
+        let errorMessage = response.statusText;
+        try {
+            const errorData = await response.json();
+            errorMessage = errorData.message || errorMessage;
+        } catch {
+            // If parsing fails, use status text
         }
+        throw new Error(errorMessage);
+    }
+    return response;
+}
+
+async function request(endpoint: string, options: RequestInit = {}): Promise<any> {
+    try {
+        const response = await send(endpoint, options);
         
         // For DELETE or other methods that might not return a body
         if (response.status === 204 || response.headers.get('Content-Length') === '0') {
@@ -52,6 +111,30 @@ async function request(endpoint: string, options: RequestInit = {}) {
     }
 }
 
+// List endpoints return one page at a time; the cursor for the next page comes back in the
+// X-Next-Cursor header and is absent on the last page.
+export interface Page<T> {
+    items: T[];
+    nextCursor: string | null;
+}
+
+async function requestPage<T>(endpoint: string, cursor?: string | null, size?: number): Promise<Page<T>> {
+    const params = new URLSearchParams();
+    if (cursor) params.append('cursor', cursor);
+    if (size !== undefined) params.append('size', size.toString());
+    const query = params.toString();
+    try {
+        const response = await send(query ? `${endpoint}?${query}` : endpoint, { method: 'GET' });
+        return {
+            items: await response.json(),
+            nextCursor: response.headers.get('X-Next-Cursor'),
+        };
+    } catch (error) {
+        console.error('API Request Error:', error);
+        throw error;
+    }
+}
+
 // --- Auth Service ---
 
 export const apiLogin = (account: string, password: string) => {
@@ -61,6 +144,13 @@ export const apiLogin = (account: string, password: string) => {
     });
 };
 
+export const apiLogout = (refreshToken: string | null) => {
+    return request('/auth/logout', {
+        method: 'POST',
+        body: JSON.stringify({ refreshToken }),
+    });
+};
+
 export const apiSignup = (userData: any) => {
     return request('/auth/signup', {
         method: 'POST',
@@ -113,16 +203,12 @@ export const apiCreateTransaction = (catalogId: string, amount: number, userId?:
     });
 };
 
-export const apiGetMyTransactions = () => {
-    return request('/transactions/my', {
-        method: 'GET',
-    });
+export const apiGetMyTransactions = (cursor?: string | null, size?: number) => {
+    return requestPage<any>('/transactions/my', cursor, size);
 };
 
-export const apiGetAllTransactions = () => {
-    return request('/transactions', {
-        method: 'GET',
-    });
+export const apiGetAllTransactions = (cursor?: string | null, size?: number) => {
+    return requestPage<any>('/transactions', cursor, size);
 };
 
 export const apiGetTransaction = (id: string) => {
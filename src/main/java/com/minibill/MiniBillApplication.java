@@ -1,19 +1,34 @@
 package com.minibill;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.minibill.auth.service.BCryptCostCalibrator;
+
 @SpringBootApplication
+@EnableScheduling
 public class MiniBillApplication {
 
+    private static final Logger log = LoggerFactory.getLogger(MiniBillApplication.class);
+
     public static void main(String[] args) {
         SpringApplication.run(MiniBillApplication.class, args);
     }
+    // target-ms > 0 時依本機量測挑選 strength（見 BCryptCostCalibrator），否則使用 strength
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${minibill.auth.bcrypt.strength:10}") int strength,
+                                           @Value("${minibill.auth.bcrypt.target-ms:0}") long targetMs) {
+        if (targetMs > 0) {
+            strength = BCryptCostCalibrator.pickStrength(targetMs);
+            log.info("BCrypt strength 依 {} ms 預算選定為 {}", targetMs, strength);
+        }
+        return new BCryptPasswordEncoder(strength);
     }
 }
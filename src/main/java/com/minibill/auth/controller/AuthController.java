@@ -1,18 +1,27 @@
 package com.minibill.auth.controller;
 
-import com.minibill.user.repository.UserPermissionRepository;
 import com.minibill.auth.dto.LoginRequest;
-import com.minibill.auth.dto.LoginResponse;
+import com.minibill.auth.dto.RefreshRequest;
 import com.minibill.auth.dto.SignupRequest;
 import com.minibill.auth.dto.SignupResponse;
 import com.minibill.user.repository.UserRepository;
 import com.minibill.user.model.User;
-import com.minibill.auth.service.JwtService;
+import com.minibill.user.service.PermissionLevelCache;
+import com.minibill.auth.model.RefreshToken;
+import com.minibill.auth.service.PasswordHashingService;
+import com.minibill.auth.service.RefreshTokenService;
+import com.minibill.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
@@ -21,46 +30,115 @@ public class AuthController {
     private UserRepository userRepository;
 
     @Autowired
-    private UserPermissionRepository userPermissionRepository;
+    private PermissionLevelCache permissionLevelCache;
 
     @Autowired
-    private JwtService jwtService;
+    private RefreshTokenService refreshTokenService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
+    // 密碼比對在 PasswordHashingService 的執行緒池執行，Tomcat 執行緒不必等 BCrypt；
+    // 帳號與權限先在請求執行緒查好，雜湊完成後在回呼執行緒簽發 Token（寫入 Refresh Token）
     @PostMapping("/signin")
-    public ResponseEntity<?> signin(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> signin(@RequestBody LoginRequest request) {
         User user = userRepository.findByAccount(request.getAccount())
                 .orElseThrow(() -> new RuntimeException("帳號不存在"));
+        Integer permissionLevel = permissionLevelCache.get(user.getUuid());
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
-            return ResponseEntity.status(401).body("密碼錯誤");
+        CompletableFuture<Boolean> matches;
+        try {
+            matches = passwordHashingService.matches(request.getPassword(), user.getPasswordHash());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
+        return matches.<ResponseEntity<?>>thenApply(matched -> {
+            if (!matched) {
+                return ResponseEntity.status(401).body("密碼錯誤");
+            }
+            if (permissionLevel == null) {
+                return ResponseEntity.status(403).body("沒有設定權限");
+            }
+            return ResponseEntity.ok(refreshTokenService.issue(user, permissionLevel));
+        }).exceptionally(AuthController::busyOnRejection);
+    }
+
+    // === 以 Refresh Token 換發新的 Access Token（舊的 Refresh Token 同時作廢） ===
+    // 權限等級直接查資料庫（不用快取），其他節點上的權限異動換發後也立即生效
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        RefreshToken session = refreshTokenService.consume(request.getRefreshToken());
+        if (session == null) {
+            return ResponseEntity.status(401).body("Refresh Token 無效或已過期");
+        }
+        User user = userRepository.findById(session.getUserUuid()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(401).body("帳號不存在");
         }
-        Integer permissionLevel = userPermissionRepository.findPermissionLevelByUser(user);
+        Integer permissionLevel = permissionLevelCache.reload(user.getUuid());
         if (permissionLevel == null) {
             return ResponseEntity.status(403).body("沒有設定權限");
         }
-        String token = jwtService.generateToken(user, permissionLevel);
-        return ResponseEntity.ok(new LoginResponse(token));
+        return ResponseEntity.ok(refreshTokenService.issue(user, permissionLevel));
     }
-    @PostMapping("/signup")
-public ResponseEntity<?> signup(@RequestBody SignupRequest request) {
-    // 檢查帳號是否已存在
-    if (userRepository.findByAccount(request.getAccount()).isPresent()) {
-        return ResponseEntity.badRequest().body("帳號已存在");
+
+    // === 登出：作廢 Refresh Token 與目前請求所用的 Access Token ===
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@RequestBody(required = false) RefreshRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        UserPrincipal principal = auth != null && auth.getPrincipal() instanceof UserPrincipal
+                ? (UserPrincipal) auth.getPrincipal() : null;
+        refreshTokenService.logout(request != null ? request.getRefreshToken() : null,
+                principal != null ? principal.getUuid() : null,
+                principal != null ? principal.getTokenId() : null,
+                principal != null ? principal.getTokenExpiresAt() : 0);
+        return ResponseEntity.ok("已登出");
     }
 
-    // 建立新使用者
-    User newUser = new User();
-    newUser.setAccount(request.getAccount());
-    newUser.setName(request.getName());
-    newUser.setEmail(request.getEmail());
-    newUser.setPassword(passwordEncoder.encode(request.getPassword())); // 密碼 Hash
-    newUser.setActive(true);
+    @PostMapping("/signup")
+    public CompletableFuture<ResponseEntity<?>> signup(@RequestBody SignupRequest request) {
+        // 檢查帳號是否已存在
+        if (userRepository.findByAccount(request.getAccount()).isPresent()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("帳號已存在"));
+        }
 
-    userRepository.save(newUser);
+        CompletableFuture<String> passwordHash;
+        try {
+            passwordHash = passwordHashingService.encode(request.getPassword()); // 密碼 Hash
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
+        // 建立使用者在 PasswordHashingService 的回呼執行緒執行，不佔用雜湊執行緒
+        return passwordHash.<ResponseEntity<?>>thenApply(hash -> {
+            // 建立新使用者
+            User newUser = new User();
+            newUser.setAccount(request.getAccount());
+            newUser.setName(request.getName());
+            newUser.setEmail(request.getEmail());
+            newUser.setPassword(hash);
+            newUser.setActive(true);
 
-    return ResponseEntity.ok(new SignupResponse("註冊成功"));
-}
+            userRepository.save(newUser);
+
+            return ResponseEntity.ok(new SignupResponse("註冊成功"));
+        }).exceptionally(AuthController::busyOnRejection);
+    }
+
+    // 雜湊佇列已滿或排隊逾時：回 503 並請客戶端 1 秒後重試
+    private static ResponseEntity<?> busy() {
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("登入請求過多，請稍後再試");
+    }
+
+    private static ResponseEntity<?> busyOnRejection(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return busy();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw new CompletionException(cause);
+    }
 }
@@ -2,12 +2,24 @@ package com.minibill.auth.dto;
 
 public class LoginResponse {
     private String token;
+    private String refreshToken;
+    private long expiresIn;   // Access Token 有效秒數
 
-    public LoginResponse(String token) {
+    public LoginResponse(String token, String refreshToken, long expiresIn) {
         this.token = token;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
     }
 
     public String getToken() {
         return token;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
 }
@@ -0,0 +1,66 @@
+package com.minibill.auth.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+// 伺服器端保存的 Refresh Token，只存 SHA-256 摘要；每次換發即刪除舊的一筆（rotation）。
+// access_jti 為這組登入最近一次簽發的 Access Token，登出或權限異動時據此撤銷
+@Entity
+@Table(name = "refresh_token", indexes = {
+    @Index(name = "idx_refresh_token_user", columnList = "user_uuid"),
+    @Index(name = "idx_refresh_token_expires", columnList = "expires_at")
+})
+public class RefreshToken {
+
+    @Id
+    @Column(name = "token_hash", length = 64, updatable = false, nullable = false)
+    private String tokenHash;
+
+    @Column(name = "user_uuid", nullable = false, updatable = false)
+    private UUID userUuid;
+
+    @Column(name = "access_jti", length = 36, nullable = false, updatable = false)
+    private String accessJti;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Timestamp createdAt;
+
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private Timestamp expiresAt;
+
+    public RefreshToken() {}
+
+    public RefreshToken(String tokenHash, UUID userUuid, String accessJti, Timestamp createdAt, Timestamp expiresAt) {
+        this.tokenHash = tokenHash;
+        this.userUuid = userUuid;
+        this.accessJti = accessJti;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public UUID getUserUuid() {
+        return userUuid;
+    }
+
+    public String getAccessJti() {
+        return accessJti;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public Timestamp getExpiresAt() {
+        return expiresAt;
+    }
+}
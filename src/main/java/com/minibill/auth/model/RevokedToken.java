@@ -0,0 +1,57 @@
+package com.minibill.auth.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+// 已撤銷的 Access Token（jti）；原 Token 到期後即無作用，由 TokenRevocationService 清除
+@Entity
+@Table(name = "revoked_token", indexes = {
+    @Index(name = "idx_revoked_token_revoked", columnList = "revoked_at"),
+    @Index(name = "idx_revoked_token_expires", columnList = "expires_at")
+})
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36, updatable = false, nullable = false)
+    private String jti;
+
+    @Column(name = "user_uuid", nullable = false, updatable = false)
+    private UUID userUuid;
+
+    @Column(name = "revoked_at", nullable = false, updatable = false)
+    private Timestamp revokedAt;
+
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private Timestamp expiresAt;
+
+    public RevokedToken() {}
+
+    public RevokedToken(String jti, UUID userUuid, Timestamp revokedAt, Timestamp expiresAt) {
+        this.jti = jti;
+        this.userUuid = userUuid;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public UUID getUserUuid() {
+        return userUuid;
+    }
+
+    public Timestamp getRevokedAt() {
+        return revokedAt;
+    }
+
+    public Timestamp getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.minibill.auth.repository;
+
+import com.minibill.auth.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.transaction.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    List<RefreshToken> findByUserUuid(UUID userUuid);
+
+    // 換發時刪除舊的一筆；回傳 0 表示已被其他請求用掉
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") Timestamp before);
+}
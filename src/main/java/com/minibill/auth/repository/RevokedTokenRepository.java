@@ -0,0 +1,24 @@
+package com.minibill.auth.repository;
+
+import com.minibill.auth.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.transaction.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // 尚未到期、且在 since 之後撤銷的紀錄（啟動時 since 為 0 即全部載入）
+    @Query("SELECT r FROM RevokedToken r WHERE r.revokedAt > :since AND r.expiresAt > :now")
+    List<RevokedToken> findActiveRevokedSince(@Param("since") Timestamp since, @Param("now") Timestamp now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") Timestamp before);
+}
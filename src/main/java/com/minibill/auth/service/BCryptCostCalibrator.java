@@ -0,0 +1,56 @@
+package com.minibill.auth.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+// === BCrypt 成本係數量測 ===
+// 在目前的機器上由低到高量測每個 strength 的 encode 時間，選出不超過延遲預算的最大值。
+// 啟動時設定 minibill.auth.bcrypt.target-ms 即自動挑選，每個 strength 的量測結果記在 info 日誌中。
+// 既有密碼的 hash 內含自己的 strength，調整後仍可驗證，新密碼才會用新的 strength
+public final class BCryptCostCalibrator {
+
+    public static final int MIN_STRENGTH = 4;
+    public static final int MAX_STRENGTH = 16;
+    private static final int SAMPLES = 3;
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private BCryptCostCalibrator() {
+    }
+
+    // 回傳中位數 encode 時間不超過 targetMs 的最大 strength；連最低值都超過時回傳 MIN_STRENGTH
+    public static int pickStrength(long targetMs) {
+        int picked = MIN_STRENGTH;
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            long millis = measure(strength);
+            log.info("BCrypt strength {}：{} ms", strength, millis);
+            if (millis > targetMs) {
+                break;
+            }
+            picked = strength;
+            // 每加 1 時間約翻倍，下一級必定超過預算就不必再量
+            if (millis * 2 > targetMs) {
+                break;
+            }
+        }
+        return picked;
+    }
+
+    // 中位數 encode 時間（毫秒）
+    public static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(SAMPLE_PASSWORD);  // 暖機
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -1,8 +1,10 @@
 package com.minibill.auth.service;
 
 import com.minibill.user.model.User;
+import com.minibill.user.repository.UserRepository;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
@@ -11,16 +13,36 @@ import java.util.Map;
 
 @Service
 public class JwtService {
+    public static final String UUID_CLAIM = "uuid";
+    public static final String PERMISSION_LEVEL_CLAIM = "permissionLevel";
+
     private final String secret = "MiniBillSecretKey"; // TODO: 放到 application.properties
-    private final long expiration = 1000 * 60 * 60; // 1 小時
+    // Access Token 有效期短，過期後以 Refresh Token 換發（RefreshTokenService）
+    @Value("${minibill.auth.access-token.ttl-ms:900000}")
+    private long expiration;
+    private static final long ADMIN_TOKEN_TTL = 1000L * 60 * 60 * 24 * 7; // 7 天有效
+    private static final long ADMIN_TOKEN_RENEW_BEFORE = 1000L * 60 * 60 * 24; // 剩不到 1 天就換新
+
+    // 開發模式的 admin Token 重複使用，不必每個請求都重新簽章
+    private volatile String adminToken;
+    private volatile long adminTokenExpiresAt;
 
-    public String generateToken(User user, Integer permissionLevel) {
+    private final UserRepository userRepository;
+
+    public JwtService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // jti 供登出與權限異動時撤銷（TokenRevocationService）
+    public String generateToken(User user, Integer permissionLevel, String jti) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("permissionLevel", permissionLevel);
+        claims.put(PERMISSION_LEVEL_CLAIM, permissionLevel);
+        claims.put(UUID_CLAIM, user.getUuid().toString());  // 讓 JwtFilter 不必再以帳號查詢使用者
 
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(user.getAccount())
+                .setId(jti)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(SignatureAlgorithm.HS256, secret)
@@ -29,15 +51,36 @@ public class JwtService {
     // 開發模式用：快速生成 admin Token
     public String generateAdminToken() {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("permissionLevel", 99); // 超級管理員權限
+        claims.put(PERMISSION_LEVEL_CLAIM, 99); // 超級管理員權限
+        userRepository.findByAccount("admin")
+                .ifPresent(admin -> claims.put(UUID_CLAIM, admin.getUuid().toString()));
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject("admin")
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + (1000L * 60 * 60 * 24 * 7))) // 7 天有效
+                .setExpiration(new Date(System.currentTimeMillis() + ADMIN_TOKEN_TTL))
                 .signWith(SignatureAlgorithm.HS256, secret)
                 .compact();
     }
+    // 開發模式用：取得共用的 admin Token，快到期時才重新產生
+    public String cachedAdminToken() {
+        String token = adminToken;
+        if (token == null || System.currentTimeMillis() > adminTokenExpiresAt - ADMIN_TOKEN_RENEW_BEFORE) {
+            synchronized (this) {
+                token = adminToken;
+                if (token == null || System.currentTimeMillis() > adminTokenExpiresAt - ADMIN_TOKEN_RENEW_BEFORE) {
+                    long expiresAt = System.currentTimeMillis() + ADMIN_TOKEN_TTL;
+                    token = generateAdminToken();
+                    adminTokenExpiresAt = expiresAt;
+                    adminToken = token;
+                }
+            }
+        }
+        return token;
+    }
+    public long getAccessTokenTtlMs() {
+        return expiration;
+    }
     public io.jsonwebtoken.Claims parseToken(String token) {
         return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
     }
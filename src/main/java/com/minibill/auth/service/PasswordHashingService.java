@@ -0,0 +1,122 @@
+package com.minibill.auth.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// === 密碼雜湊專用執行緒池 ===
+// BCrypt 很吃 CPU，放在 Tomcat 執行緒上時一波登入就會佔滿所有 worker，連帶拖慢其他 API。
+// 這裡固定 CPU 核心數的執行緒與有上限的佇列：佇列滿了立即拒絕（RejectedExecutionException），
+// 在佇列中等太久的工作也直接放棄（客戶端多半已逾時），由 AuthController 回 503 讓客戶端稍後重試。
+// 回傳的 future 由另一組回呼執行緒完成，呼叫端接在後面的 thenApply（查寫資料庫、簽發 Token）
+// 在回呼執行緒執行，不佔用雜湊執行緒，也不會讓資料庫等待拖慢其他人的雜湊
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor callbackExecutor;
+    private final long maxWaitNanos;
+
+    private final Counter rejectedCounter;
+    private final Counter expiredCounter;
+    private final Timer waitTimer;
+    private final Timer hashTimer;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${minibill.auth.hash.threads:0}") int threads,
+                                  @Value("${minibill.auth.hash.queue-capacity:64}") int queueCapacity,
+                                  @Value("${minibill.auth.hash.max-wait-ms:2000}") long maxWaitMs,
+                                  @Value("${minibill.auth.hash.callback-threads:8}") int callbackThreads) {
+        this.passwordEncoder = passwordEncoder;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // 工作數已受雜湊佇列限制，這裡的佇列不會無限成長
+        AtomicInteger callbackIndex = new AtomicInteger();
+        this.callbackExecutor = new ThreadPoolExecutor(callbackThreads, callbackThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-callback-" + callbackIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.rejectedCounter = meterRegistry.counter("minibill.auth.hash.rejected", "reason", "queue-full");
+        this.expiredCounter = meterRegistry.counter("minibill.auth.hash.rejected", "reason", "wait-timeout");
+        this.waitTimer = meterRegistry.timer("minibill.auth.hash.wait");
+        this.hashTimer = meterRegistry.timer("minibill.auth.hash.duration");
+        meterRegistry.gauge("minibill.auth.hash.queue", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("minibill.auth.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        callbackExecutor.shutdown();
+        callbackExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // 佇列已滿時直接拋出 RejectedExecutionException，不會卡住呼叫端
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> rawPassword != null && encodedPassword != null
+                && passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long waited = System.nanoTime() - queuedAt;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxWaitNanos) {
+                    expiredCounter.increment();
+                    callbackExecutor.execute(() -> future.completeExceptionally(new RejectedExecutionException("排隊逾時")));
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    T result = task.get();
+                    callbackExecutor.execute(() -> future.complete(result));
+                } catch (RuntimeException e) {
+                    callbackExecutor.execute(() -> future.completeExceptionally(e));
+                } finally {
+                    hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+        return future;
+    }
+}
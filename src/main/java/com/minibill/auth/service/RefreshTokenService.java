@@ -0,0 +1,119 @@
+package com.minibill.auth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.minibill.auth.dto.LoginResponse;
+import com.minibill.auth.model.RefreshToken;
+import com.minibill.auth.repository.RefreshTokenRepository;
+import com.minibill.user.model.User;
+
+// === Access / Refresh Token 的簽發、換發與撤銷 ===
+// Refresh Token 是隨機字串，資料庫只存 SHA-256 摘要；每次換發刪除舊的一筆並撤銷它最近簽發的 Access Token，
+// 所以一組登入同時最多只有一張有效的 Access Token，登出或權限異動時撤銷它即可立即生效
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final JwtService jwtService;
+
+    @Value("${minibill.auth.refresh-token.ttl-days:14}")
+    private long refreshTtlDays;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               TokenRevocationService tokenRevocationService,
+                               JwtService jwtService) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.jwtService = jwtService;
+    }
+
+    // 登入或換發成功：簽發新的 Access Token 並建立對應的 Refresh Token
+    public LoginResponse issue(User user, int permissionLevel) {
+        String jti = UUID.randomUUID().toString();
+        String accessToken = jwtService.generateToken(user, permissionLevel, jti);
+
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        long now = System.currentTimeMillis();
+        refreshTokenRepository.save(new RefreshToken(hash(refreshToken), user.getUuid(), jti,
+                new Timestamp(now), new Timestamp(now + TimeUnit.DAYS.toMillis(refreshTtlDays))));
+
+        return new LoginResponse(accessToken, refreshToken,
+                TimeUnit.MILLISECONDS.toSeconds(jwtService.getAccessTokenTtlMs()));
+    }
+
+    // 用掉一張 Refresh Token：刪除並撤銷它簽發的 Access Token；無效、過期或已被用過時回傳 null
+    public RefreshToken consume(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return null;
+        }
+        String tokenHash = hash(refreshToken);
+        RefreshToken session = refreshTokenRepository.findById(tokenHash).orElse(null);
+        // 以刪除筆數判斷，兩個請求同時換發同一張時只有一個成功
+        if (session == null || refreshTokenRepository.deleteByTokenHash(tokenHash) == 0) {
+            return null;
+        }
+        revokeAccessToken(session);
+        return session.getExpiresAt().getTime() > System.currentTimeMillis() ? session : null;
+    }
+
+    // 登出：作廢 Refresh Token 與目前的 Access Token（jti 可為 null）
+    public void logout(String refreshToken, UUID userUuid, String accessJti, long accessExpiresAt) {
+        consume(refreshToken);
+        if (userUuid != null && accessJti != null) {
+            tokenRevocationService.revoke(userUuid, accessJti, accessExpiresAt);
+        }
+    }
+
+    // 權限異動：撤銷該使用者所有登入目前的 Access Token，Refresh Token 保留，
+    // 客戶端換發後即取得新的權限等級
+    public void revokeAccessTokens(UUID userUuid) {
+        List<RefreshToken> sessions = refreshTokenRepository.findByUserUuid(userUuid);
+        Map<String, Long> jtis = new HashMap<>();
+        for (RefreshToken session : sessions) {
+            jtis.put(session.getAccessJti(), accessExpiresAtUpperBound());
+        }
+        tokenRevocationService.revoke(userUuid, jtis);
+    }
+
+    @Scheduled(cron = "${minibill.auth.token-purge-cron:0 30 4 * * *}")
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpiredBefore(new Timestamp(System.currentTimeMillis()));
+    }
+
+    private void revokeAccessToken(RefreshToken session) {
+        tokenRevocationService.revoke(session.getUserUuid(), session.getAccessJti(), accessExpiresAtUpperBound());
+    }
+
+    // 資料庫沒有存 Access Token 的到期時間，以「現在 + 有效期」保守估計，撤銷紀錄只會多留一點時間
+    private long accessExpiresAtUpperBound() {
+        return System.currentTimeMillis() + jwtService.getAccessTokenTtlMs();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
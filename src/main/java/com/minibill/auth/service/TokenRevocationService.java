@@ -0,0 +1,99 @@
+package com.minibill.auth.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.minibill.auth.model.RevokedToken;
+import com.minibill.auth.repository.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// === 已撤銷 Access Token（jti）的記憶體集合 ===
+// Access Token 有效期很短，集合裡只需保留尚未到期的 jti，數量不大；每個請求只做一次雜湊查詢，不碰資料庫。
+// 啟動時由 revoked_token 載入，之後定期補上其他節點新增的撤銷並移除已到期的 jti（sync-interval-ms）
+@Service
+public class TokenRevocationService {
+
+    // 其他節點的撤銷可能晚一點才提交，同步時往回多看這段時間
+    private static final long SYNC_LAG_MS = 5000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    // jti → 原 Token 到期時間（毫秒）
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile long syncedUntil;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        meterRegistry.gaugeMapSize("minibill.auth.revoked.size", Collections.emptyList(), revoked);
+    }
+
+    @PostConstruct
+    public void load() {
+        sync();
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && revoked.containsKey(jti);
+    }
+
+    // jtiExpiresAt: jti → 原 Token 到期時間（毫秒）
+    // 在交易內呼叫時，提交後才放進記憶體集合；交易回滾時不會只在本節點留下撤銷（同 PermissionLevelCache）
+    public void revoke(UUID userUuid, Map<String, Long> jtiExpiresAt) {
+        if (jtiExpiresAt.isEmpty()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<RevokedToken> rows = new ArrayList<>(jtiExpiresAt.size());
+        jtiExpiresAt.forEach((jti, expiresAt) ->
+                rows.add(new RevokedToken(jti, userUuid, now, new Timestamp(expiresAt))));
+        revokedTokenRepository.saveAll(rows);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<String, Long> pending = new HashMap<>(jtiExpiresAt);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revoked.putAll(pending);
+                }
+            });
+        } else {
+            revoked.putAll(jtiExpiresAt);
+        }
+    }
+
+    public void revoke(UUID userUuid, String jti, long expiresAt) {
+        revoke(userUuid, Collections.singletonMap(jti, expiresAt));
+    }
+
+    @Scheduled(fixedDelayString = "${minibill.auth.revocation.sync-interval-ms:10000}")
+    public synchronized void sync() {
+        long now = System.currentTimeMillis();
+        Timestamp since = new Timestamp(Math.max(0, syncedUntil - SYNC_LAG_MS));
+        long latest = syncedUntil;
+        for (RevokedToken row : revokedTokenRepository.findActiveRevokedSince(since, new Timestamp(now))) {
+            revoked.put(row.getJti(), row.getExpiresAt().getTime());
+            latest = Math.max(latest, row.getRevokedAt().getTime());
+        }
+        syncedUntil = latest;
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    @Scheduled(cron = "${minibill.auth.token-purge-cron:0 30 4 * * *}")
+    public void purgeExpired() {
+        revokedTokenRepository.deleteExpiredBefore(new Timestamp(System.currentTimeMillis()));
+    }
+}
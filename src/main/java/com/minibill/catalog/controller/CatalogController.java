@@ -2,43 +2,126 @@ package com.minibill.catalog.controller;
 
 import com.minibill.catalog.dto.*;
 import com.minibill.catalog.model.Catalog;
+import com.minibill.catalog.service.CatalogImportService;
+import com.minibill.catalog.service.CatalogResponseCache;
 import com.minibill.catalog.service.CatalogService;
+import com.minibill.common.Money;
+import com.minibill.common.RecordFileReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.minibill.security.PermissionRequired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/catalog")
 public class CatalogController {
 
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final CatalogService catalogService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CatalogImportService catalogImportService;
+    private final ObjectMapper objectMapper;
 
-    public CatalogController(CatalogService catalogService) {
+    public CatalogController(CatalogService catalogService, CatalogResponseCache catalogResponseCache,
+                             CatalogImportService catalogImportService, ObjectMapper objectMapper) {
         this.catalogService = catalogService;
+        this.catalogResponseCache = catalogResponseCache;
+        this.catalogImportService = catalogImportService;
+        this.objectMapper = objectMapper;
     }
 
     // === 新增商品 ===
     @PostMapping
     @PermissionRequired(99)
-    public ResponseEntity<CatalogResponse> addItem(@RequestBody CatalogCreateRequest request) {
+    public ResponseEntity<?> addItem(@RequestBody CatalogCreateRequest request) {
+        if (request.getCurrency() != null && !Money.isValidCurrency(request.getCurrency())) {
+            return ResponseEntity.badRequest().body("不支援的幣別：" + request.getCurrency());
+        }
         Catalog item = new Catalog();
         item.setName(request.getName());
         item.setDescription(request.getDescription());
-        item.setPrice(request.getPrice());
+        if (request.getCurrency() != null) {
+            item.setCurrency(request.getCurrency());
+        }
+        item.setPriceMinor(Money.toMinor(request.getPrice(), item.getCurrency()));
         item.setActive(request.getActive());
         Catalog saved = catalogService.addItem(item);
         return ResponseEntity.ok(toResponse(saved));
     }
 
+    // === 批次匯入商品（依名稱新增或更新） ===
+    // atomic=true 時整個匯入在同一個 DB 交易內，任何寫入錯誤整批回滾；否則每批各自提交
+    // JSON 陣列
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PermissionRequired(99)
+    public ResponseEntity<CatalogImportResult> importItems(@RequestBody List<CatalogCreateRequest> rows,
+                                                           @RequestParam(defaultValue = "false") boolean atomic) throws IOException {
+        int[] next = {0};
+        return ResponseEntity.ok(catalogImportService.importItems(max -> {
+            int from = next[0];
+            next[0] = Math.min(from + max, rows.size());
+            return rows.subList(from, next[0]);
+        }, atomic));
+    }
+
+    // CSV（第一行為標題列）或 NDJSON：邊讀邊分批寫入，不需把整個檔案放進記憶體
+    @PostMapping(value = "/bulk", consumes = {"text/csv", NDJSON_VALUE})
+    @PermissionRequired(99)
+    public ResponseEntity<CatalogImportResult> importItemsStream(HttpServletRequest request,
+                                                                 @RequestParam(defaultValue = "false") boolean atomic) throws IOException {
+        boolean csv = !request.getContentType().startsWith(NDJSON_VALUE);
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            RecordFileReader<CatalogCreateRequest> reader = new RecordFileReader<>(csv, lines,
+                    objectMapper.readerFor(CatalogCreateRequest.class));
+            return ResponseEntity.ok(catalogImportService.importItems(reader::readChunk, atomic));
+        }
+    }
+
     // === 查詢商品 ===
+    // 直接回傳快取中已序列化的 JSON；用戶端接受 gzip 時回傳預先壓縮的版本
+    // 帶 If-None-Match 且內容未變時回 304
     @GetMapping
-    public ResponseEntity<List<CatalogResponse>> getActiveItems() {
-        List<Catalog> items = catalogService.getActiveItems();
-        return ResponseEntity.ok(items.stream().map(this::toResponse).collect(Collectors.toList()));
+    public ResponseEntity<byte[]> getActiveItems(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        CatalogResponseCache.Snapshot cached = catalogResponseCache.get();
+        boolean gzip = cached.getGzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? cached.getGzipEtag() : cached.getEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? cached.getGzip() : cached.getJson());
+    }
+
+    // === 搜尋商品 ===
+    // 輸入中即可查詢：q 可為名稱或描述的片段（英數字以前綴比對），依相關度排序
+    @GetMapping("/search")
+    public ResponseEntity<List<CatalogResponse>> searchItems(@RequestParam String q,
+                                                             @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(catalogService.search(q, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT))));
     }
 
     // === 修改商品 ===
@@ -59,13 +142,6 @@ public class CatalogController {
 
     // 封裝轉換
     private CatalogResponse toResponse(Catalog catalog) {
-        CatalogResponse res = new CatalogResponse();
-        res.setUuid(catalog.getUuid());
-        res.setName(catalog.getName());
-        res.setDescription(catalog.getDescription());
-        res.setPrice(catalog.getPrice());
-        res.setActive(catalog.isActive());
-        res.setCreatedAt(catalog.getCreatedAt());
-        return res;
+        return CatalogResponse.of(catalog);
     }
 }
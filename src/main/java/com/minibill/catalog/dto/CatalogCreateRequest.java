@@ -1,9 +1,12 @@
 package com.minibill.catalog.dto;
 
+import java.math.BigDecimal;
+
 public class CatalogCreateRequest {
     private String name;
     private String description;
-    private double price;
+    private BigDecimal price;   // 一般金額，依 currency 換算成最小單位儲存
+    private String currency;    // 未提供時使用預設幣別
     private Boolean active;
 
     // Getter / Setter
@@ -13,8 +16,11 @@ public class CatalogCreateRequest {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
 
     public Boolean getActive() { return active; }
     public void setActive(Boolean active) { this.active = active; }
@@ -0,0 +1,60 @@
+package com.minibill.catalog.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CatalogImportResult {
+    private int total;
+    private int created;
+    private int updated;
+    private int unchanged;   // 名稱已存在且內容相同
+    private List<Failure> failures = new ArrayList<>();
+
+    // 單筆失敗：index 為該筆在請求中的位置（從 0 起算，不含標題列）
+    public static class Failure {
+        private int index;
+        private String message;
+
+        public Failure() {}
+
+        public Failure(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public void addFailure(int index, String message) {
+        failures.add(new Failure(index, message));
+    }
+
+    // 合併分批結果
+    public void merge(CatalogImportResult other) {
+        total += other.total;
+        created += other.created;
+        updated += other.updated;
+        unchanged += other.unchanged;
+        failures.addAll(other.failures);
+    }
+
+    // Getter / Setter
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public int getUnchanged() { return unchanged; }
+    public void setUnchanged(int unchanged) { this.unchanged = unchanged; }
+
+    public List<Failure> getFailures() { return failures; }
+    public void setFailures(List<Failure> failures) { this.failures = failures; }
+}
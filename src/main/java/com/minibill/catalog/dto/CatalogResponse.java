@@ -1,16 +1,33 @@
 package com.minibill.catalog.dto;
 
+import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.UUID;
 
+import com.minibill.catalog.model.Catalog;
+import com.minibill.common.Money;
+
 public class CatalogResponse {
     private UUID uuid;
     private String name;
     private String description;
-    private double price;
+    private long priceMinor;
+    private String currency;
     private Boolean active;
     private Timestamp createdAt;
 
+    public static CatalogResponse of(Catalog catalog) {
+        CatalogResponse res = new CatalogResponse();
+        res.setUuid(catalog.getUuid());
+        res.setName(catalog.getName());
+        res.setDescription(catalog.getDescription());
+        res.setPriceMinor(catalog.getPriceMinor());
+        res.setCurrency(catalog.getCurrency());
+        res.setActive(catalog.isActive());
+        res.setCreatedAt(catalog.getCreatedAt());
+        return res;
+    }
+
     public UUID getUuid() {
         return uuid;
     }
@@ -32,11 +49,23 @@ public class CatalogResponse {
         this.description = description;
     }
 
-    public double getPrice() {
-        return price;
+    public long getPriceMinor() {
+        return priceMinor;
+    }
+    public void setPriceMinor(long priceMinor) {
+        this.priceMinor = priceMinor;
+    }
+
+    public String getCurrency() {
+        return currency;
     }
-    public void setPrice(double price) {
-        this.price = price;
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    // 一般金額，僅供顯示
+    public BigDecimal getPrice() {
+        return Money.toMajor(priceMinor, currency);
     }
 
     public Boolean getActive() {
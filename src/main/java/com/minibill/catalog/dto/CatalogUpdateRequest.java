@@ -1,9 +1,11 @@
 package com.minibill.catalog.dto;
 
+import java.math.BigDecimal;
+
 public class CatalogUpdateRequest {
     private String name;
     private String description;
-    private double price;
+    private BigDecimal price;   // 一般金額，依商品幣別換算
     private Boolean active;
 
     public String getName() {
@@ -20,10 +22,10 @@ public class CatalogUpdateRequest {
         this.description = description;
     }
 
-    public double getPrice() {
+    public BigDecimal getPrice() {
         return price;
     }
-    public void setPrice(double price) {
+    public void setPrice(BigDecimal price) {
         this.price = price;
     }
 
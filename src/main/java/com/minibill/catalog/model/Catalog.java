@@ -8,8 +8,11 @@ import javax.persistence.Table;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.GenericGenerator;
 
+import com.minibill.common.Money;
+
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Version;
 import java.sql.Timestamp;
 import java.util.UUID;
 
@@ -30,8 +33,12 @@ public class Catalog {
     private String description;
      
 
-    @Column(nullable = false, unique = false)
-    private double price;
+    // 價格以最小貨幣單位儲存（見 com.minibill.common.Money）
+    @Column(name = "price_minor", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private long priceMinor;
+
+    @Column(name = "currency", length = 3, columnDefinition = "VARCHAR2(3) DEFAULT 'TWD' NOT NULL")
+    private String currency = Money.DEFAULT_CURRENCY;
 
 
     @Column(name = "created_at", updatable = false)
@@ -41,6 +48,11 @@ public class Catalog {
     @Column(name = "is_active")
     private Boolean active;
 
+    // 樂觀鎖版本號，舊資料由預設值補 0
+    @Version
+    @Column(name = "version", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private Long version;
+
     public UUID getUuid() {
         return uuid;
     }
@@ -53,8 +65,12 @@ public class Catalog {
         return description;
     }
 
-    public double getPrice() {
-        return price;
+    public long getPriceMinor() {
+        return priceMinor;
+    }
+
+    public String getCurrency() {
+        return currency;
     }
 
     public Timestamp getCreatedAt() {
@@ -64,12 +80,21 @@ public class Catalog {
     public Boolean isActive() {
         return active;
     }   
+
+    public Long getVersion() {
+        return version;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
 
-    public void setPrice(double price) {
-        this.price = price;
+    public void setPriceMinor(long priceMinor) {
+        this.priceMinor = priceMinor;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
     }
     public void setDescription(String description) {
         this.description = description;
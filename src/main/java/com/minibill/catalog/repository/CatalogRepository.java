@@ -2,6 +2,8 @@ package com.minibill.catalog.repository;
 
 import com.minibill.catalog.model.Catalog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
 import java.util.UUID;
 import java.util.List;
 import java.util.Optional;
@@ -9,4 +11,11 @@ import java.util.Optional;
 public interface CatalogRepository extends JpaRepository<Catalog, UUID> {
     List<Catalog> findByActiveTrue();
     Optional<Catalog> findByName(String name);
+
+    // 批次匯入以名稱比對既有商品（呼叫端需控制在 1000 筆內）
+    List<Catalog> findByNameIn(Collection<String> names);
+
+    // 異動計數：商品只會新增或修改（不刪除，version 每次修改加一），任何寫入都會讓總和變大
+    @Query("SELECT COALESCE(SUM(c.version + 1), 0) FROM Catalog c")
+    long changeCounter();
 }
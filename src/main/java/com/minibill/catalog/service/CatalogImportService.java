@@ -0,0 +1,221 @@
+package com.minibill.catalog.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.minibill.catalog.dto.CatalogCreateRequest;
+import com.minibill.catalog.dto.CatalogImportResult;
+import com.minibill.catalog.model.Catalog;
+import com.minibill.catalog.repository.CatalogRepository;
+import com.minibill.common.Money;
+
+// === 商品批次匯入（依名稱新增或更新） ===
+// 每批的既有商品以一次 IN 查詢取回，寫入走 Hibernate JDBC batch；
+// atomic 時整個匯入在同一個 DB 交易內，否則每批各自提交。清單快取與搜尋索引在匯入結束後只更新一次
+@Service
+public class CatalogImportService {
+
+    // Oracle IN 清單上限
+    private static final int MAX_CHUNK_SIZE = 1000;
+
+    // 每次取出最多 max 筆，讀完回傳空清單
+    public interface ChunkSource {
+        List<CatalogCreateRequest> next(int max) throws IOException;
+    }
+
+    private final CatalogRepository catalogRepository;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${minibill.catalog.import.chunk-size:500}")
+    private int chunkSize;
+
+    public CatalogImportService(CatalogRepository catalogRepository,
+                                CatalogResponseCache catalogResponseCache,
+                                CatalogSearchIndex catalogSearchIndex,
+                                TransactionTemplate transactionTemplate) {
+        this.catalogRepository = catalogRepository;
+        this.catalogResponseCache = catalogResponseCache;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // atomic 時任何寫入錯誤都會讓整個匯入回滾並拋出；否則失敗的批次每一筆都記為失敗，其他批次照常進行
+    // 個別資料錯誤（缺欄位、金額格式）只記錄在結果中，兩種模式都不影響其他筆
+    public CatalogImportResult importItems(ChunkSource source, boolean atomic) throws IOException {
+        CatalogImportResult result = new CatalogImportResult();
+        try {
+            if (atomic) {
+                transactionTemplate.executeWithoutResult(status -> importAll(source, result, false));
+            } else {
+                importAll(source, result, true);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            catalogResponseCache.invalidate();
+            catalogSearchIndex.rebuild();
+        }
+        return result;
+    }
+
+    private void importAll(ChunkSource source, CatalogImportResult result, boolean commitEachChunk) {
+        int size = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        int index = 0;
+        List<CatalogCreateRequest> chunk;
+        while (!(chunk = next(source, size)).isEmpty()) {
+            if (commitEachChunk) {
+                importChunkInOwnTransaction(chunk, index, result);
+            } else {
+                result.merge(importChunk(chunk, index));
+            }
+            index += chunk.size();
+        }
+    }
+
+    private static List<CatalogCreateRequest> next(ChunkSource source, int size) {
+        try {
+            return source.next(size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void importChunkInOwnTransaction(List<CatalogCreateRequest> chunk, int firstIndex,
+                                             CatalogImportResult result) {
+        try {
+            result.merge(transactionTemplate.execute(status -> importChunk(chunk, firstIndex)));
+        } catch (RuntimeException e) {
+            CatalogImportResult failed = new CatalogImportResult();
+            failed.setTotal(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                failed.addFailure(firstIndex + i, "批次寫入失敗：" + e.getMessage());
+            }
+            result.merge(failed);
+        }
+    }
+
+    // 需在交易內呼叫；rows 中的 null 代表該筆無法解析
+    private CatalogImportResult importChunk(List<CatalogCreateRequest> rows, int firstIndex) {
+        CatalogImportResult result = new CatalogImportResult();
+        result.setTotal(rows.size());
+
+        Set<String> names = new HashSet<>();
+        for (CatalogCreateRequest row : rows) {
+            if (row != null && row.getName() != null && !row.getName().trim().isEmpty()) {
+                names.add(row.getName().trim());
+            }
+        }
+        // 名稱不是唯一鍵，同名的既有商品有多筆時無法判斷要更新哪一筆
+        Map<String, Catalog> byName = new HashMap<>();
+        Set<String> duplicated = new HashSet<>();
+        if (!names.isEmpty()) {
+            for (Catalog item : catalogRepository.findByNameIn(names)) {
+                if (byName.putIfAbsent(item.getName(), item) != null) {
+                    duplicated.add(item.getName());
+                }
+            }
+        }
+
+        int created = 0;
+        int updated = 0;
+        int unchanged = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            CatalogCreateRequest row = rows.get(i);
+            int index = firstIndex + i;
+            if (row == null) {
+                result.addFailure(index, "資料格式錯誤");
+                continue;
+            }
+            String name = row.getName() == null ? "" : row.getName().trim();
+            if (name.isEmpty()) {
+                result.addFailure(index, "缺少商品名稱");
+                continue;
+            }
+            if (duplicated.contains(name)) {
+                result.addFailure(index, "同名商品有多筆，無法判斷要更新哪一筆");
+                continue;
+            }
+
+            Catalog item = byName.get(name);
+            String currency = row.getCurrency() != null ? row.getCurrency()
+                    : item != null ? item.getCurrency() : Money.DEFAULT_CURRENCY;
+            Long priceMinor = null;
+            try {
+                if (row.getPrice() != null && row.getPrice().signum() > 0) {  // 價格必須大於 0 才更新（同 updateItemFields）
+                    priceMinor = Money.toMinor(row.getPrice(), currency);
+                } else if (item == null) {
+                    throw new RuntimeException("缺少價格");
+                }
+            } catch (RuntimeException e) {
+                result.addFailure(index, e.getMessage());
+                continue;
+            }
+            if (item != null && priceMinor == null && !currency.equals(item.getCurrency())) {
+                result.addFailure(index, "變更幣別需同時提供價格");
+                continue;
+            }
+
+            if (item == null) {
+                item = new Catalog();
+                item.setName(name);
+                item.setDescription(row.getDescription());
+                item.setCurrency(currency);
+                item.setPriceMinor(priceMinor);
+                item.setActive(row.getActive() == null ? Boolean.TRUE : row.getActive());
+                entityManager.persist(item);
+                byName.put(name, item);   // 同一批後面的同名列改為更新
+                created++;
+                continue;
+            }
+
+            boolean changed = false;
+            if (row.getDescription() != null && !row.getDescription().equals(item.getDescription())) {
+                item.setDescription(row.getDescription());
+                changed = true;
+            }
+            if (!currency.equals(item.getCurrency())) {
+                item.setCurrency(currency);
+                changed = true;
+            }
+            if (priceMinor != null && priceMinor != item.getPriceMinor()) {
+                item.setPriceMinor(priceMinor);
+                changed = true;
+            }
+            if (row.getActive() != null && !Objects.equals(row.getActive(), item.isActive())) {
+                item.setActive(row.getActive());
+                changed = true;
+            }
+            if (changed) {
+                updated++;
+            } else {
+                unchanged++;
+            }
+        }
+
+        // 在這裡送出，讓資料庫錯誤在這一批拋出
+        entityManager.flush();
+        entityManager.clear();
+        result.setCreated(created);
+        result.setUpdated(updated);
+        result.setUnchanged(unchanged);
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package com.minibill.catalog.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minibill.catalog.dto.CatalogResponse;
+import com.minibill.catalog.repository.CatalogRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// === 上架商品清單的回應快取 ===
+// 保存已序列化的 JSON（與 gzip 壓縮後的版本）和以內容雜湊產生的 ETag，讀取時不查資料庫也不重新序列化。
+// CatalogService 寫入後呼叫 invalidate()，下一次讀取才重建；ttl-ms 限制其他節點或直接改資料庫時的最長過期時間
+@Component
+public class CatalogResponseCache {
+
+    // 內容相同就得到相同的 ETag，多個節點各自重建也一致
+    public static class Snapshot {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        private final String gzipEtag;
+        private final long loadedAt;
+
+        Snapshot(byte[] json, byte[] gzip, String etag, long loadedAt) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = "\"" + etag + "\"";
+            this.gzipEtag = "\"" + etag + "-gzip\"";
+            this.loadedAt = loadedAt;
+        }
+
+        public byte[] getJson() { return json; }
+
+        // 未啟用或壓縮後沒有變小時為 null
+        public byte[] getGzip() { return gzip; }
+
+        public String getEtag() { return etag; }
+
+        // 壓縮版本內容不同，強 ETag 也需不同
+        public String getGzipEtag() { return gzipEtag; }
+    }
+
+    private final CatalogRepository catalogRepository;
+    private final ObjectMapper objectMapper;
+    private final Counter hitCounter;
+    private final Counter loadCounter;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @Value("${minibill.catalog.cache.gzip:true}")
+    private boolean gzipEnabled;
+
+    @Value("${minibill.catalog.cache.ttl-ms:300000}")
+    private long ttlMillis;
+
+    public CatalogResponseCache(CatalogRepository catalogRepository, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.catalogRepository = catalogRepository;
+        this.objectMapper = objectMapper;
+        this.hitCounter = meterRegistry.counter("minibill.catalog.cache.hits");
+        this.loadCounter = meterRegistry.counter("minibill.catalog.cache.loads");
+    }
+
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null && !expired(current)) {
+            hitCounter.increment();
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && !expired(current)) {
+                hitCounter.increment();
+                return current;
+            }
+            // 重建期間若有寫入，這次的結果只回給本次請求，不放進快取
+            long loadingGeneration = generation.get();
+            Snapshot loaded = load();
+            if (generation.get() == loadingGeneration) {
+                snapshot = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private boolean expired(Snapshot current) {
+        return ttlMillis > 0 && System.currentTimeMillis() - current.loadedAt > ttlMillis;
+    }
+
+    private Snapshot load() {
+        loadCounter.increment();
+        List<CatalogResponse> items = catalogRepository.findByActiveTrue().stream()
+                .map(CatalogResponse::of)
+                .collect(Collectors.toList());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(items);
+            byte[] gzip = gzipEnabled ? gzip(json) : null;
+            if (gzip != null && gzip.length >= json.length) {
+                gzip = null;
+            }
+            return new Snapshot(json, gzip, hash(json), System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
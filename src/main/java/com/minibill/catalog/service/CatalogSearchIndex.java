@@ -0,0 +1,262 @@
+package com.minibill.catalog.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.minibill.catalog.dto.CatalogResponse;
+import com.minibill.catalog.model.Catalog;
+import com.minibill.catalog.repository.CatalogRepository;
+
+// === 上架商品的記憶體搜尋索引（倒排索引） ===
+// 中日韓文字切成單字與二字詞（bigram），其他文字以單字為單位並展開所有前綴，輸入到一半也能找到；
+// 查詢的每個詞都要命中（AND），依命中欄位與前綴長度計分排序。
+// 啟動時由 CatalogRepository 建立，之後由 CatalogService 的寫入逐筆更新，查詢不碰資料庫；
+// 其他節點的寫入由定期比對 CatalogRepository.changeCounter() 發現，有變動才整個重建
+@Component
+public class CatalogSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final int MAX_PREFIX_LENGTH = 20;
+
+    private static class Entry {
+        private final CatalogResponse item;
+        private final Set<String> terms;
+
+        Entry(CatalogResponse item, Set<String> terms) {
+            this.item = item;
+            this.terms = terms;
+        }
+    }
+
+    private final CatalogRepository catalogRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 詞 → (商品 → 權重)
+    private final Map<String, Map<UUID, Float>> postings = new HashMap<>();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+
+    // 目前索引建立時的異動計數
+    private volatile long builtAtCounter = -1;
+
+    public CatalogSearchIndex(CatalogRepository catalogRepository) {
+        this.catalogRepository = catalogRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // 先取計數再讀資料：讀取期間的寫入會讓下一次比對再重建一次，不會漏掉
+        long counter = catalogRepository.changeCounter();
+        List<Catalog> items = catalogRepository.findByActiveTrue();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            entries.clear();
+            items.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        builtAtCounter = counter;
+        log.info("商品搜尋索引建立完成：{} 筆，{} 個詞", items.size(), postings.size());
+    }
+
+    @Scheduled(fixedDelayString = "${minibill.catalog.search.refresh-interval-ms:60000}",
+               initialDelayString = "${minibill.catalog.search.refresh-interval-ms:60000}")
+    public void rebuildIfChanged() {
+        if (catalogRepository.changeCounter() != builtAtCounter) {
+            rebuild();
+        }
+    }
+
+    // 新增或修改後呼叫；已下架的商品會從索引移除
+    public void put(Catalog catalog) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(catalog.getUuid());
+            if (catalog.isActive()) {
+                add(catalog);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID uuid) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(uuid);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // === 查詢：回傳分數最高的 limit 筆，同分依名稱排序 ===
+    public List<CatalogResponse> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, (term, weight) -> terms.add(term), false);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<UUID, Float> scores = null;
+            for (String term : terms) {
+                Map<UUID, Float> posting = postings.get(term);
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                if (scores == null) {
+                    scores = new HashMap<>(posting);
+                } else {
+                    Map<UUID, Float> matched = new HashMap<>();
+                    for (Map.Entry<UUID, Float> score : scores.entrySet()) {
+                        Float weight = posting.get(score.getKey());
+                        if (weight != null) {
+                            matched.put(score.getKey(), score.getValue() + weight);
+                        }
+                    }
+                    scores = matched;
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            List<Map.Entry<UUID, Float>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<UUID, Float>comparingByValue().reversed()
+                    .thenComparing(score -> entries.get(score.getKey()).item.getName(),
+                            Comparator.nullsLast(Comparator.naturalOrder())));
+            List<CatalogResponse> result = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                result.add(entries.get(ranked.get(i).getKey()).item);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === 索引維護（呼叫端持有寫入鎖） ===
+    private void add(Catalog catalog) {
+        Map<String, Float> weights = new HashMap<>();
+        TermSink sink = (term, weight) -> weights.merge(term, weight, Math::max);
+        tokenize(catalog.getName(), scaled(sink, NAME_WEIGHT), true);
+        tokenize(catalog.getDescription(), scaled(sink, DESCRIPTION_WEIGHT), true);
+
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, k -> new HashMap<>()).put(catalog.getUuid(), weight));
+        entries.put(catalog.getUuid(), new Entry(CatalogResponse.of(catalog), weights.keySet()));
+    }
+
+    private void removeEntry(UUID uuid) {
+        Entry entry = entries.remove(uuid);
+        if (entry == null) {
+            return;
+        }
+        for (String term : entry.terms) {
+            Map<UUID, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(uuid);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    // === 斷詞 ===
+    private interface TermSink {
+        void accept(String term, float weight);
+    }
+
+    private static TermSink scaled(TermSink sink, float factor) {
+        return (term, weight) -> sink.accept(term, weight * factor);
+    }
+
+    // 全形轉半形、轉小寫後，依字元類別切段：
+    // 中日韓文字段產生二字詞（權重 1）與單字（權重 0.5，單字查詢用）；查詢時一字以上只用二字詞。
+    // 其他字母數字段為一個字，索引時展開前綴（權重 = 前綴長度 / 字長，完整命中分數最高），查詢時即為前綴
+    private static void tokenize(String text, TermSink sink, boolean indexing) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjk = new StringBuilder();
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, sink, indexing);
+                cjk.appendCodePoint(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjk, sink, indexing);
+                word.appendCodePoint(cp);
+            } else {
+                flushWord(word, sink, indexing);
+                flushCjk(cjk, sink, indexing);
+            }
+        }
+        flushWord(word, sink, indexing);
+        flushCjk(cjk, sink, indexing);
+    }
+
+    private static void flushWord(StringBuilder word, TermSink sink, boolean indexing) {
+        if (word.length() == 0) {
+            return;
+        }
+        int length = Math.min(word.length(), MAX_PREFIX_LENGTH);
+        if (indexing) {
+            for (int end = 1; end <= length; end++) {
+                sink.accept(word.substring(0, end), (float) end / word.length());
+            }
+        } else {
+            sink.accept(word.substring(0, length), 1f);
+        }
+        word.setLength(0);
+    }
+
+    private static void flushCjk(StringBuilder run, TermSink sink, boolean indexing) {
+        if (run.length() == 0) {
+            return;
+        }
+        int[] chars = run.codePoints().toArray();
+        if (indexing || chars.length == 1) {
+            for (int cp : chars) {
+                sink.accept(new String(Character.toChars(cp)), 0.5f);
+            }
+        }
+        for (int i = 0; i + 1 < chars.length; i++) {
+            sink.accept(new String(chars, i, 2), 1f);
+        }
+        run.setLength(0);
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.BOPOMOFO;
+    }
+}
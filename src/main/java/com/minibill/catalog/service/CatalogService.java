@@ -1,8 +1,10 @@
 package com.minibill.catalog.service;
 
+import com.minibill.catalog.dto.CatalogResponse;
 import com.minibill.catalog.dto.CatalogUpdateRequest;
 import com.minibill.catalog.model.Catalog;
 import com.minibill.catalog.repository.CatalogRepository;
+import com.minibill.common.Money;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,9 +14,14 @@ import java.util.UUID;
 public class CatalogService {
 
     private final CatalogRepository catalogRepository;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CatalogSearchIndex catalogSearchIndex;
     
-    public CatalogService(CatalogRepository catalogRepository) {
+    public CatalogService(CatalogRepository catalogRepository, CatalogResponseCache catalogResponseCache,
+                          CatalogSearchIndex catalogSearchIndex) {
         this.catalogRepository = catalogRepository;
+        this.catalogResponseCache = catalogResponseCache;
+        this.catalogSearchIndex = catalogSearchIndex;
     }
 
     public Catalog updateItemFields(UUID id, CatalogUpdateRequest request) {
@@ -27,18 +34,23 @@ public class CatalogService {
         if (request.getDescription() != null) {
             existing.setDescription(request.getDescription());
         }
-        if (request.getPrice() > 0) {  // 價格必須大於 0 才更新
-            existing.setPrice(request.getPrice());
+        if (request.getPrice() != null && request.getPrice().signum() > 0) {  // 價格必須大於 0 才更新
+            existing.setPriceMinor(Money.toMinor(request.getPrice(), existing.getCurrency()));
         }
         if (request.getActive() != null) {
             existing.setActive(request.getActive());
         }
 
-        return catalogRepository.save(existing);
+        return onSaved(catalogRepository.save(existing));
     }
 
     public Catalog addItem(Catalog item) {
-        return catalogRepository.save(item);
+        return onSaved(catalogRepository.save(item));
+    }
+
+    // 名稱或描述搜尋（只含上架商品），由記憶體索引回答
+    public List<CatalogResponse> search(String query, int limit) {
+        return catalogSearchIndex.search(query, limit);
     }
 
     public List<Catalog> getActiveItems() {
@@ -49,15 +61,23 @@ public class CatalogService {
         return catalogRepository.findById(id).map(item -> {
             item.setName(updated.getName());
             item.setDescription(updated.getDescription());
-            item.setPrice(updated.getPrice());
-            return catalogRepository.save(item);
+            item.setPriceMinor(updated.getPriceMinor());
+            item.setCurrency(updated.getCurrency());
+            return onSaved(catalogRepository.save(item));
         }).orElseThrow(() -> new RuntimeException("找不到商品"));
     }
 
     public void deactivateItem(UUID id) {
         catalogRepository.findById(id).ifPresent(item -> {
             item.setActive(false);
-            catalogRepository.save(item);
+            onSaved(catalogRepository.save(item));
         });
     }
+
+    // 寫入後同步清單快取與搜尋索引
+    private Catalog onSaved(Catalog saved) {
+        catalogResponseCache.invalidate();
+        catalogSearchIndex.put(saved);
+        return saved;
+    }
 }
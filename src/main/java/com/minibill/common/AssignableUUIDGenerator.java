@@ -0,0 +1,18 @@
+package com.minibill.common;
+
+import java.io.Serializable;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.UUIDGenerator;
+
+// 與 UUIDGenerator 相同，但 Entity 已預先指定 UUID 時沿用該值（批次匯入、journal 重播需要固定 UUID 才能冪等）
+// 需搭配 @Version，Hibernate 才會以版本號為 null 判斷為新資料
+public class AssignableUUIDGenerator extends UUIDGenerator {
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Serializable id = session.getEntityPersister(null, object).getIdentifier(object, session);
+        return id != null ? id : super.generate(session, object);
+    }
+}
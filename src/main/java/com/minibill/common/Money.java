@@ -0,0 +1,50 @@
+package com.minibill.common;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+// 金額一律以「最小貨幣單位」的 long 儲存與加總（例如 TWD 1 元 = 100），並搭配 ISO 4217 幣別代碼
+// 對外（API 輸入與顯示）仍使用一般金額，換算只發生在邊界
+public final class Money {
+    public static final String DEFAULT_CURRENCY = "TWD";
+
+    private Money() {}
+
+    // 一般金額 → 最小單位；小數位數超過幣別允許時直接拒絕，不做四捨五入
+    public static long toMinor(BigDecimal amount, String currency) {
+        if (amount == null) {
+            throw new RuntimeException("缺少金額");
+        }
+        try {
+            return amount.movePointRight(fractionDigits(currency)).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("金額格式錯誤：" + amount.toPlainString());
+        }
+    }
+
+    // 最小單位 → 一般金額
+    public static BigDecimal toMajor(long minor, String currency) {
+        return BigDecimal.valueOf(minor, fractionDigits(currency));
+    }
+
+    public static int fractionDigits(String currency) {
+        String code = currency == null ? DEFAULT_CURRENCY : currency;
+        if (!isValidCurrency(code)) {
+            throw new RuntimeException("不支援的幣別：" + code);
+        }
+        return Math.max(Currency.getInstance(code).getDefaultFractionDigits(), 0);
+    }
+
+    // ISO 4217 代碼（大寫三碼）；API 邊界先檢查，不合法時回 400，不讓錯誤的代碼寫進資料表
+    public static boolean isValidCurrency(String currency) {
+        if (currency == null || !currency.matches("[A-Z]{3}")) {
+            return false;
+        }
+        try {
+            Currency.getInstance(currency);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
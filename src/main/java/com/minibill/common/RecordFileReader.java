@@ -0,0 +1,103 @@
+package com.minibill.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// 匯入檔（NDJSON 或 CSV）逐行讀取，一次取出一批，不把整個檔案放進記憶體
+// CSV 第一行為標題列，欄位名稱與 JSON 屬性名稱相同（順序不限），空白欄位視為未填；
+// 每一列轉成 JSON 物件後交給同一個 ObjectReader，型別轉換與 NDJSON 一致
+public class RecordFileReader<T> {
+
+    private final boolean csv;
+    private final BufferedReader lines;
+    private final ObjectReader reader;
+    private List<String> header;
+
+    public RecordFileReader(boolean csv, BufferedReader lines, ObjectReader reader) {
+        this.csv = csv;
+        this.lines = lines;
+        this.reader = reader;
+    }
+
+    // 最多讀出 max 筆；無法解析的行以 null 代表，讀到檔尾回傳空清單
+    public List<T> readChunk(int max) throws IOException {
+        List<T> chunk = new ArrayList<>(max);
+        String line;
+        while (chunk.size() < max && (line = lines.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (csv && header == null) {
+                header = readHeader(line);
+                continue;
+            }
+            chunk.add(parse(line));
+        }
+        return chunk;
+    }
+
+    private T parse(String line) {
+        try {
+            if (!csv) {
+                return reader.readValue(line);
+            }
+            List<String> fields = splitCsv(line);
+            ObjectNode row = JsonNodeFactory.instance.objectNode();
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                String value = fields.get(i).trim();
+                if (!value.isEmpty()) {
+                    row.put(header.get(i), value);
+                }
+            }
+            return reader.readValue(row);
+        } catch (IOException | RuntimeException e) {
+            return null; // 無法解析，交由 Service 記錄為失敗
+        }
+    }
+
+    private static List<String> readHeader(String line) {
+        if (line.charAt(0) == '\uFEFF') {
+            line = line.substring(1); // Excel 存檔時帶的 BOM
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : splitCsv(line)) {
+            names.add(name.trim());
+        }
+        return names;
+    }
+
+    // 支援以雙引號包住、內含逗號或 "" 跳脫的欄位
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,166 @@
+package com.minibill.config;
+
+import com.minibill.common.Money;
+import com.minibill.report.service.RevenueRollupService;
+import com.minibill.transactions.service.UserBalanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+// 資料表結構由 Hibernate ddl-auto=update 建立/補欄位；
+// 這裡處理 ddl-auto 做不到的資料轉換與舊欄位移除，每個步驟都可重複執行
+@Configuration
+public class SchemaMigrationConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrationConfig.class);
+
+    @Bean
+    CommandLineRunner migrateSchema(JdbcTemplate jdbcTemplate, UserBalanceService userBalanceService,
+                                    RevenueRollupService revenueRollupService) {
+        return args -> {
+            boolean moneyMigrated = migrateMoneyToMinorUnits(jdbcTemplate);
+            backfillCatalogSnapshot(jdbcTemplate, "TRANSACTIONS");
+            backfillCatalogSnapshot(jdbcTemplate, "TRANSACTIONS_ARCHIVE");
+            migrateIdempotencyKeyPrimaryKey(jdbcTemplate);
+            migrateOverdueFlagNotNull(jdbcTemplate);
+            boolean balanceMigrated = migrateUserBalanceByCurrency(jdbcTemplate);
+            if (moneyMigrated || balanceMigrated) {
+                int users = userBalanceService.rebuildAll();
+                log.info("已重建 {} 位使用者的帳款摘要", users);
+            }
+            if (moneyMigrated || needsRevenueBackfill(jdbcTemplate)) {
+                int rows = revenueRollupService.rebuildAll();
+                log.info("已重建 {} 筆每日營收彙總", rows);
+            }
+        };
+    }
+
+    // === 金額改為最小貨幣單位：double 欄位換算後移除 ===
+    private boolean migrateMoneyToMinorUnits(JdbcTemplate jdbcTemplate) {
+        long factor = (long) Math.pow(10, Money.fractionDigits(Money.DEFAULT_CURRENCY));
+        boolean migrated = false;
+
+        if (columnExists(jdbcTemplate, "TRANSACTIONS", "AMOUNT")) {
+            jdbcTemplate.update("UPDATE transactions SET amount_minor = ROUND(amount * ?)", factor);
+            jdbcTemplate.execute("ALTER TABLE transactions DROP COLUMN amount");
+            migrated = true;
+        }
+        if (columnExists(jdbcTemplate, "CATALOG", "PRICE")) {
+            jdbcTemplate.update("UPDATE catalog SET price_minor = ROUND(price * ?)", factor);
+            jdbcTemplate.execute("ALTER TABLE catalog DROP COLUMN price");
+            migrated = true;
+        }
+        // 帳款摘要的舊欄位直接移除，之後整批重建
+        if (columnExists(jdbcTemplate, "USER_BALANCE", "TOTAL_BILLED")) {
+            jdbcTemplate.execute("ALTER TABLE user_balance DROP (total_billed, total_unpaid)");
+            migrated = true;
+        }
+        if (migrated) {
+            log.info("金額欄位已轉換為最小貨幣單位");
+        }
+        return migrated;
+    }
+
+    // === 交易上的商品快照：以目前的商品資料回填（購買當時的價格已無從得知），完成後改為 NOT NULL ===
+    // NOT NULL 同時作為已完成的標記，之後啟動不再掃描整張表
+    private void backfillCatalogSnapshot(JdbcTemplate jdbcTemplate, String table) {
+        if (!columnNullable(jdbcTemplate, table, "CATALOG_NAME")) {
+            return;
+        }
+        int rows = jdbcTemplate.update("UPDATE " + table + " t SET (catalog_name, catalog_description, catalog_price_minor) = " +
+                "(SELECT c.name, c.description, c.price_minor FROM catalog c WHERE c.uuid = t.catalog_uuid) " +
+                "WHERE t.catalog_name IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY (catalog_name NOT NULL, catalog_price_minor NOT NULL)");
+        log.info("已回填 {} 的商品快照：{} 筆", table.toLowerCase(), rows);
+    }
+
+    // === Idempotency-Key 改為每位使用者各自的 key：主鍵由 (idem_key) 換成 (user_uuid, idem_key) ===
+    // ddl-auto 不會修改既有主鍵；原本 key 已全域唯一，加上 user_uuid 後不會有重複
+    private void migrateIdempotencyKeyPrimaryKey(JdbcTemplate jdbcTemplate) {
+        List<String> columns = primaryKeyColumns(jdbcTemplate, "IDEMPOTENCY_KEY");
+        if (columns.equals(Arrays.asList("USER_UUID", "IDEM_KEY"))) {
+            return;
+        }
+        if (!columns.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE idempotency_key DROP PRIMARY KEY DROP INDEX");
+        }
+        jdbcTemplate.execute("ALTER TABLE idempotency_key ADD CONSTRAINT pk_idempotency_key PRIMARY KEY (user_uuid, idem_key)");
+        log.info("idempotency_key 主鍵已改為 (user_uuid, idem_key)");
+    }
+
+    // === 逾期旗標改為 NOT NULL：NULL 補 0，逾期掃描的條件才能整段落在 (is_paid, is_overdue, dateline) 索引範圍內 ===
+    // ddl-auto 不會修改既有欄位的 NULL 限制；舊的 (is_paid, dateline) 索引由新索引取代後移除
+    private void migrateOverdueFlagNotNull(JdbcTemplate jdbcTemplate) {
+        if (columnNullable(jdbcTemplate, "TRANSACTIONS", "IS_OVERDUE")) {
+            int rows = jdbcTemplate.update("UPDATE transactions SET is_overdue = 0 WHERE is_overdue IS NULL");
+            jdbcTemplate.execute("ALTER TABLE transactions MODIFY (is_overdue DEFAULT 0 NOT NULL)");
+            log.info("transactions.is_overdue 已改為 NOT NULL，回填 {} 筆", rows);
+        }
+        if (indexExists(jdbcTemplate, "IDX_TRANSACTIONS_PAID_DATELINE")) {
+            jdbcTemplate.execute("DROP INDEX idx_transactions_paid_dateline");
+            log.info("已移除 idx_transactions_paid_dateline");
+        }
+    }
+
+    // === 帳款摘要改為每個幣別一列：主鍵由 (user_uuid) 換成 (user_uuid, currency) ===
+    // currency 欄位由 ddl-auto 以預設值補上；舊的列把不同幣別加在一起，回傳 true 由呼叫端整批重建
+    private boolean migrateUserBalanceByCurrency(JdbcTemplate jdbcTemplate) {
+        List<String> columns = primaryKeyColumns(jdbcTemplate, "USER_BALANCE");
+        if (columns.equals(Arrays.asList("USER_UUID", "CURRENCY"))) {
+            return false;
+        }
+        if (!columns.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE user_balance DROP PRIMARY KEY DROP INDEX");
+        }
+        jdbcTemplate.execute("ALTER TABLE user_balance ADD CONSTRAINT pk_user_balance PRIMARY KEY (user_uuid, currency)");
+        log.info("user_balance 主鍵已改為 (user_uuid, currency)");
+        return true;
+    }
+
+    // === 每日營收彙總：新表為空但已有交易時整批回填 ===
+    private boolean needsRevenueBackfill(JdbcTemplate jdbcTemplate) {
+        Integer rollups = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM revenue_daily WHERE ROWNUM = 1", Integer.class);
+        if (rollups != null && rollups > 0) {
+            return false;
+        }
+        Integer transactions = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE ROWNUM = 1", Integer.class);
+        return transactions != null && transactions > 0;
+    }
+
+    // 主鍵欄位，依在主鍵中的順序；沒有主鍵時回傳空清單
+    static List<String> primaryKeyColumns(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT cc.column_name FROM user_constraints c " +
+                "JOIN user_cons_columns cc ON cc.constraint_name = c.constraint_name " +
+                "WHERE c.table_name = ? AND c.constraint_type = 'P' ORDER BY cc.position",
+                String.class, table);
+    }
+
+    static boolean columnNullable(JdbcTemplate jdbcTemplate, String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_tab_columns WHERE table_name = ? AND column_name = ? AND nullable = 'Y'",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+
+    static boolean indexExists(JdbcTemplate jdbcTemplate, String index) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_indexes WHERE index_name = ?", Integer.class, index);
+        return count != null && count > 0;
+    }
+
+    static boolean columnExists(JdbcTemplate jdbcTemplate, String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_tab_columns WHERE table_name = ? AND column_name = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
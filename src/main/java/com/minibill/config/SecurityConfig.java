@@ -2,14 +2,17 @@ package com.minibill.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.minibill.security.JwtFilter;
+import com.minibill.transactions.controller.TransactionsController;
 
 @Configuration
 public class SecurityConfig {
@@ -25,6 +28,8 @@ public class SecurityConfig {
         config.addAllowedOrigin("http://localhost:5173"); // 或用 "*"（測試用）
         config.addAllowedMethod("*");                    // GET, POST, PUT...
         config.addAllowedHeader("*");                    // Authorization, Content-Type...
+        config.addExposedHeader(TransactionsController.NEXT_CURSOR_HEADER); // 分頁游標
+        config.addExposedHeader("ETag");                 // 樂觀鎖版本
         config.setAllowCredentials(true);                // 如要攜帶 Cookie/憑證
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -43,10 +48,14 @@ public class SecurityConfig {
                 "/v3/api-docs/**",
                 "/swagger-resources/**",
                 "/webjars/**",
-                "/auth/**"
+                "/auth/**",
+                WebSocketConfig.ENDPOINT + "/**"    // 握手不帶 Token，改在 STOMP CONNECT 驗證
             ).permitAll()
             .anyRequest().authenticated()
             .and()
+            // 沒有 Token、Token 無效、過期或已撤銷一律回 401，前端據此換發；權限不足仍是 403
+            .exceptionHandling().authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+            .and()
             .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
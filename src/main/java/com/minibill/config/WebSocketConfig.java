@@ -0,0 +1,47 @@
+package com.minibill.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import com.minibill.security.StompAuthChannelInterceptor;
+
+// === WebSocket / STOMP ===
+// 連線端點 /ws；連線時於 STOMP CONNECT 帶 Authorization: Bearer <token>（瀏覽器無法在握手時帶標頭）
+// 訂閱：/user/queue/transactions 自己的交易，/topic/transactions 所有交易（最高權限）
+// 使用程序內的 simple broker：只會推送到連在同一個節點上的訂閱者，多節點部署時其他節點的異動收不到。
+// 要多節點時改用 enableStompBrokerRelay 接外部 STOMP broker（需另加 reactor-netty 相依）
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    public static final String ENDPOINT = "/ws";
+    public static final String ALL_TRANSACTIONS_TOPIC = "/topic/transactions";
+    public static final String USER_TRANSACTIONS_QUEUE = "/queue/transactions";
+
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+    }
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint(ENDPOINT).setAllowedOrigins("http://localhost:5173");
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic", "/queue");
+        registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
+}
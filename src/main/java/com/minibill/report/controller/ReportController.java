@@ -0,0 +1,44 @@
+package com.minibill.report.controller;
+
+import com.minibill.report.dto.RevenueReportRow;
+import com.minibill.report.service.RevenueRollupService;
+import com.minibill.security.PermissionRequired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+
+    private final RevenueRollupService revenueRollupService;
+
+    public ReportController(RevenueRollupService revenueRollupService) {
+        this.revenueRollupService = revenueRollupService;
+    }
+
+    // === 營收報表 (僅最高權限可用) ===
+    // granularity: day | month | year；from/to 為交易建立日期（含），catalogId 可選
+    @GetMapping("/revenue")
+    @PermissionRequired(99)
+    public ResponseEntity<List<RevenueReportRow>> getRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) UUID catalogId) {
+        return ResponseEntity.ok(revenueRollupService.getRevenue(from, to,
+                RevenueRollupService.Granularity.of(granularity), catalogId));
+    }
+
+    // === 重建營收彙總 (僅最高權限可用) ===
+    @PostMapping("/revenue/rebuild")
+    @PermissionRequired(99)
+    public ResponseEntity<String> rebuildRevenue() {
+        int rows = revenueRollupService.rebuildAll();
+        return ResponseEntity.ok("已重建 " + rows + " 筆每日營收彙總");
+    }
+}
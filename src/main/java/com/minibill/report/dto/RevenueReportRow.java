@@ -0,0 +1,82 @@
+package com.minibill.report.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.minibill.common.Money;
+
+// 營收報表的一列：某商品在某期間（日、月或年，以起始日表示）的筆數與金額
+public class RevenueReportRow {
+    private LocalDate period;
+    private UUID catalogUuid;
+    private String catalogName;
+    private String currency;
+    private long txCount;
+    private long paidCount;
+    private long totalMinor;
+    private long paidMinor;
+
+    // Constructors
+    public RevenueReportRow() {}
+
+    public RevenueReportRow(LocalDate period, UUID catalogUuid, String catalogName, String currency) {
+        this.period = period;
+        this.catalogUuid = catalogUuid;
+        this.catalogName = catalogName;
+        this.currency = currency;
+    }
+
+    public void add(long txCount, long paidCount, long totalMinor, long paidMinor) {
+        this.txCount += txCount;
+        this.paidCount += paidCount;
+        this.totalMinor += totalMinor;
+        this.paidMinor += paidMinor;
+    }
+
+    // 一般金額，依幣別換算
+    public BigDecimal getTotal() {
+        return Money.toMajor(totalMinor, currency);
+    }
+
+    public BigDecimal getPaid() {
+        return Money.toMajor(paidMinor, currency);
+    }
+
+    public BigDecimal getUnpaid() {
+        return Money.toMajor(totalMinor - paidMinor, currency);
+    }
+
+    // Getters
+    public LocalDate getPeriod() {
+        return period;
+    }
+
+    public UUID getCatalogUuid() {
+        return catalogUuid;
+    }
+
+    public String getCatalogName() {
+        return catalogName;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+
+    public long getPaidCount() {
+        return paidCount;
+    }
+
+    public long getTotalMinor() {
+        return totalMinor;
+    }
+
+    public long getPaidMinor() {
+        return paidMinor;
+    }
+}
@@ -0,0 +1,105 @@
+package com.minibill.report.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+// 每個商品每天（依交易建立日）的營收彙總，由 TransactionsService 寫入時同步增量維護
+// 金額為最小貨幣單位，幣別即商品幣別
+@Entity
+@Table(name = "revenue_daily")
+@IdClass(RevenueDaily.Key.class)
+public class RevenueDaily {
+    @Id
+    @Column(name = "catalog_uuid", updatable = false, nullable = false)
+    private UUID catalogUuid;
+
+    @Id
+    @Column(name = "revenue_date", updatable = false, nullable = false)
+    private LocalDate revenueDate;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    @Column(name = "paid_count", nullable = false)
+    private long paidCount;
+
+    @Column(name = "total_minor", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private long totalMinor;
+
+    @Column(name = "paid_minor", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private long paidMinor;
+
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    private Timestamp updatedAt;
+
+    public RevenueDaily() {}
+
+    // Getter
+    public UUID getCatalogUuid() {
+        return catalogUuid;
+    }
+    public LocalDate getRevenueDate() {
+        return revenueDate;
+    }
+    public long getTxCount() {
+        return txCount;
+    }
+    public long getPaidCount() {
+        return paidCount;
+    }
+    public long getTotalMinor() {
+        return totalMinor;
+    }
+    public long getPaidMinor() {
+        return paidMinor;
+    }
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    // 複合主鍵 (catalog_uuid, revenue_date)
+    public static class Key implements Serializable {
+        private UUID catalogUuid;
+        private LocalDate revenueDate;
+
+        public Key() {}
+
+        public Key(UUID catalogUuid, LocalDate revenueDate) {
+            this.catalogUuid = catalogUuid;
+            this.revenueDate = revenueDate;
+        }
+
+        public UUID getCatalogUuid() {
+            return catalogUuid;
+        }
+
+        public LocalDate getRevenueDate() {
+            return revenueDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(catalogUuid, key.catalogUuid) && Objects.equals(revenueDate, key.revenueDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(catalogUuid, revenueDate);
+        }
+    }
+}
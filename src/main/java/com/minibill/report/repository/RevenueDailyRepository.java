@@ -0,0 +1,66 @@
+package com.minibill.report.repository;
+
+import com.minibill.report.model.RevenueDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface RevenueDailyRepository extends JpaRepository<RevenueDaily, RevenueDaily.Key> {
+
+    // 筆數與金額以差量更新，不需讀出整筆
+    @Modifying
+    @Query("UPDATE RevenueDaily r SET r.txCount = r.txCount + :count, r.paidCount = r.paidCount + :paidCount, " +
+        "r.totalMinor = r.totalMinor + :total, r.paidMinor = r.paidMinor + :paid, r.updatedAt = CURRENT_TIMESTAMP " +
+        "WHERE r.catalogUuid = :catalogUuid AND r.revenueDate = :revenueDate")
+    int applyDelta(@Param("catalogUuid") UUID catalogUuid,
+                   @Param("revenueDate") LocalDate revenueDate,
+                   @Param("count") long count,
+                   @Param("paidCount") long paidCount,
+                   @Param("total") long total,
+                   @Param("paid") long paid);
+
+    // 彙總列不存在時建立全 0 的列；並行請求已建立（含尚未提交）時等待對方並略過，不拋出主鍵衝突
+    @Modifying
+    @Query(value = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(revenue_daily (catalog_uuid, revenue_date)) */ " +
+        "INTO revenue_daily (catalog_uuid, revenue_date, tx_count, paid_count, total_minor, paid_minor, updated_at) " +
+        "VALUES (:catalogUuid, :revenueDate, 0, 0, 0, 0, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int insertIfAbsent(@Param("catalogUuid") UUID catalogUuid, @Param("revenueDate") LocalDate revenueDate);
+
+    // 報表查詢：依主鍵範圍讀取每日彙總，catalogUuid 為 null 表示全部商品
+    @Query("SELECT r FROM RevenueDaily r WHERE r.revenueDate >= :from AND r.revenueDate <= :to " +
+        "AND (:catalogUuid IS NULL OR r.catalogUuid = :catalogUuid) " +
+        "ORDER BY r.revenueDate, r.catalogUuid")
+    List<RevenueDaily> findRange(@Param("from") LocalDate from,
+                                 @Param("to") LocalDate to,
+                                 @Param("catalogUuid") UUID catalogUuid);
+
+    // === 全量重建 ===
+    // 先鎖住整張表：同時建立交易的增量更新會等重建提交後才套用，不會與重建的 INSERT 撞主鍵
+    @Modifying
+    @Query(value = "LOCK TABLE revenue_daily IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM revenue_daily", nativeQuery = true)
+    int deleteAllRows();
+
+    // 含已封存的交易
+    @Modifying
+    @Query(value = "INSERT INTO revenue_daily " +
+        "(catalog_uuid, revenue_date, tx_count, paid_count, total_minor, paid_minor, updated_at) " +
+        "SELECT catalog_uuid, TRUNC(created_at), COUNT(*), " +
+        "       SUM(CASE WHEN is_paid = 1 THEN 1 ELSE 0 END), " +
+        "       SUM(amount_minor), " +
+        "       SUM(CASE WHEN is_paid = 1 THEN amount_minor ELSE 0 END), " +
+        "       CURRENT_TIMESTAMP " +
+        "FROM (SELECT catalog_uuid, created_at, amount_minor, is_paid FROM transactions " +
+        "      UNION ALL " +
+        "      SELECT catalog_uuid, created_at, amount_minor, is_paid FROM transactions_archive) " +
+        "GROUP BY catalog_uuid, TRUNC(created_at)", nativeQuery = true)
+    int insertAllFromTransactions();
+}
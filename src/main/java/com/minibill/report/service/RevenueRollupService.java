@@ -0,0 +1,144 @@
+package com.minibill.report.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.transaction.Transactional;
+
+import org.springframework.stereotype.Service;
+
+import com.minibill.catalog.model.Catalog;
+import com.minibill.catalog.repository.CatalogRepository;
+import com.minibill.report.dto.RevenueReportRow;
+import com.minibill.report.model.RevenueDaily;
+import com.minibill.report.repository.RevenueDailyRepository;
+
+// 商品每日營收彙總：由交易寫入路徑在同一個 DB 交易內呼叫（同 UserBalanceService），
+// 報表只讀取彙總列，月、年由每日列加總而來
+@Service
+public class RevenueRollupService {
+
+    public enum Granularity {
+        DAY, MONTH, YEAR;
+
+        public static Granularity of(String value) {
+            for (Granularity granularity : values()) {
+                if (granularity.name().equalsIgnoreCase(value)) {
+                    return granularity;
+                }
+            }
+            throw new RuntimeException("不支援的統計單位：" + value);
+        }
+
+        // 期間以起始日表示
+        LocalDate periodOf(LocalDate date) {
+            switch (this) {
+                case MONTH:
+                    return date.withDayOfMonth(1);
+                case YEAR:
+                    return date.withDayOfYear(1);
+                default:
+                    return date;
+            }
+        }
+    }
+
+    private final RevenueDailyRepository revenueDailyRepository;
+    private final CatalogRepository catalogRepository;
+
+    public RevenueRollupService(RevenueDailyRepository revenueDailyRepository,
+                                CatalogRepository catalogRepository) {
+        this.revenueDailyRepository = revenueDailyRepository;
+        this.catalogRepository = catalogRepository;
+    }
+
+    // 交易的營收日即建立日
+    public static LocalDate dayOf(Timestamp createdAt) {
+        return createdAt == null ? LocalDate.now() : createdAt.toLocalDateTime().toLocalDate();
+    }
+
+    // === 交易異動 ===
+    @Transactional
+    public void onCreated(UUID catalogUuid, LocalDate day, long amount, boolean paid) {
+        applyChange(catalogUuid, day, 1, paid ? 1 : 0, amount, paid ? amount : 0);
+    }
+
+    @Transactional
+    public void onDeleted(UUID catalogUuid, LocalDate day, long amount, boolean paid) {
+        applyChange(catalogUuid, day, -1, paid ? -1 : 0, -amount, paid ? -amount : 0);
+    }
+
+    // 商品變更時從舊商品移到新商品
+    @Transactional
+    public void onChanged(UUID oldCatalogUuid, UUID newCatalogUuid, LocalDate day,
+                          long oldAmount, boolean oldPaid, long newAmount, boolean newPaid) {
+        if (!oldCatalogUuid.equals(newCatalogUuid)) {
+            onDeleted(oldCatalogUuid, day, oldAmount, oldPaid);
+            onCreated(newCatalogUuid, day, newAmount, newPaid);
+            return;
+        }
+        long paidCount = (newPaid ? 1 : 0) - (oldPaid ? 1 : 0);
+        long paid = (newPaid ? newAmount : 0) - (oldPaid ? oldAmount : 0);
+        applyChange(newCatalogUuid, day, 0, paidCount, newAmount - oldAmount, paid);
+    }
+
+    // 批次建立時每個商品只呼叫一次（皆為未付款）
+    @Transactional
+    public void onCreatedBatch(UUID catalogUuid, LocalDate day, long count, long amount) {
+        applyChange(catalogUuid, day, count, 0, amount, 0);
+    }
+
+    // 批次標記已付款時每個商品每天只呼叫一次
+    @Transactional
+    public void onPaidBatch(UUID catalogUuid, LocalDate day, long count, long amount) {
+        applyChange(catalogUuid, day, 0, count, 0, amount);
+    }
+
+    // 彙總列不存在時先建立再套用差量；同一商品當天的第一筆交易並行寫入時，
+    // 後到的 insertIfAbsent 會略過已存在的列，不會因主鍵衝突讓使用者的交易回滾（同 UserBalanceService）
+    private void applyChange(UUID catalogUuid, LocalDate day, long count, long paidCount, long total, long paid) {
+        if (revenueDailyRepository.applyDelta(catalogUuid, day, count, paidCount, total, paid) == 0) {
+            revenueDailyRepository.insertIfAbsent(catalogUuid, day);
+            revenueDailyRepository.applyDelta(catalogUuid, day, count, paidCount, total, paid);
+        }
+    }
+
+    // === 報表：from、to 皆含，依期間與商品加總 ===
+    public List<RevenueReportRow> getRevenue(LocalDate from, LocalDate to, Granularity granularity, UUID catalogUuid) {
+        List<RevenueDaily> days = revenueDailyRepository.findRange(from, to, catalogUuid);
+        Set<UUID> catalogIds = days.stream().map(RevenueDaily::getCatalogUuid).collect(Collectors.toSet());
+        Map<UUID, Catalog> catalogs = catalogRepository.findAllById(catalogIds).stream()
+                .collect(Collectors.toMap(Catalog::getUuid, Function.identity()));
+
+        // 每日列已依日期排序，加總後保持期間順序
+        Map<RevenueDaily.Key, RevenueReportRow> rows = new LinkedHashMap<>();
+        for (RevenueDaily day : days) {
+            LocalDate period = granularity.periodOf(day.getRevenueDate());
+            RevenueReportRow row = rows.computeIfAbsent(new RevenueDaily.Key(day.getCatalogUuid(), period), key -> {
+                Catalog catalog = catalogs.get(day.getCatalogUuid());
+                return new RevenueReportRow(period, day.getCatalogUuid(),
+                        catalog == null ? null : catalog.getName(),
+                        catalog == null ? null : catalog.getCurrency());
+            });
+            row.add(day.getTxCount(), day.getPaidCount(), day.getTotalMinor(), day.getPaidMinor());
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    // === 全量重建（修復與初次回填用）：只在啟動移轉或管理員手動觸發時執行 ===
+    // 重建期間整張表鎖住、所有營收寫入都會等待，不排入例行排程；平常由增量更新維護
+    @Transactional
+    public int rebuildAll() {
+        revenueDailyRepository.lockForRebuild();
+        revenueDailyRepository.deleteAllRows();
+        return revenueDailyRepository.insertAllFromTransactions();
+    }
+}
@@ -1,7 +1,6 @@
 package com.minibill.security;
 
 import com.minibill.auth.service.JwtService;
-import io.jsonwebtoken.Claims;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -20,12 +19,14 @@ import java.util.Collections;
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Value("${spring.profiles.active:dev}")
     private String activeProfile;
 
-    public JwtFilter(JwtService jwtService) {
+    public JwtFilter(JwtService jwtService, VerifiedTokenCache verifiedTokenCache) {
         this.jwtService = jwtService;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
@@ -35,20 +36,16 @@ public class JwtFilter extends OncePerRequestFilter {
 
         // 開發環境無 Token → 自動套用 admin Token
         if ((authHeader == null || !authHeader.startsWith("Bearer ")) && "dev".equals(activeProfile)) {
-            authHeader = "Bearer " + jwtService.generateAdminToken();
-            System.out.println("JwtFilter executed, Authorization: " + authHeader);
+            authHeader = "Bearer " + jwtService.cachedAdminToken();
         }
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                Claims claims = jwtService.parseToken(token);
-                String username = claims.getSubject();
-                Integer permissionLevel = (Integer) claims.get("permissionLevel");
+                UserPrincipal principal = verifiedTokenCache.authenticate(token);
 
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList());
-                authentication.setDetails(permissionLevel);
+                        new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             } catch (Exception e) {
                 // Token 無效，忽略
@@ -2,8 +2,6 @@ package com.minibill.security;
 
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Aspect
@@ -12,11 +10,8 @@ public class PermissionAspect {
 
     @Before("@annotation(permissionRequired)")
     public void checkPermission(PermissionRequired permissionRequired) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || auth.getDetails() == null) {
-            throw new RuntimeException("未授權");
-        }
-        int userLevel = (int) auth.getDetails();
+        // JwtFilter 已換上 PermissionLevelCache 的目前等級，不是 Token 簽發時的值
+        int userLevel = UserPrincipal.current().getPermissionLevel();
         if (userLevel < permissionRequired.value()) {
             throw new RuntimeException("權限不足");
         }
@@ -0,0 +1,87 @@
+package com.minibill.security;
+
+import com.minibill.auth.service.JwtService;
+import com.minibill.config.WebSocketConfig;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+// === STOMP 驗證 ===
+// CONNECT 時驗證 Authorization 標頭，以 UserPrincipal（同 JwtFilter）作為連線身分；
+// Principal 名稱即使用者 UUID，讓 TransactionEventPublisher 可直接以交易的 user_uuid 推送。
+// SUBSCRIBE 只允許白名單中的目的地。
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final String OWN_TRANSACTIONS_QUEUE = "/user" + WebSocketConfig.USER_TRANSACTIONS_QUEUE;
+
+    private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Value("${spring.profiles.active:dev}")
+    private String activeProfile;
+
+    public StompAuthChannelInterceptor(JwtService jwtService, VerifiedTokenCache verifiedTokenCache) {
+        this.jwtService = jwtService;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            checkSubscription(accessor);
+        }
+        return message;
+    }
+
+    // 訂閱採白名單：自己的交易佇列任何登入者都可訂閱，所有交易的頻道需要最高權限，
+    // 其他目的地（含 * 或 { 等萬用字元、其他使用者的佇列）一律拒絕
+    private void checkSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        UsernamePasswordAuthenticationToken user = (UsernamePasswordAuthenticationToken) accessor.getUser();
+        if (destination == null || user == null) {
+            throw new MessagingException("權限不足");
+        }
+        if (OWN_TRANSACTIONS_QUEUE.equals(destination)) {
+            return;
+        }
+        if (WebSocketConfig.ALL_TRANSACTIONS_TOPIC.equals(destination)
+                && ((UserPrincipal) user.getPrincipal()).isAdmin()) {
+            return;
+        }
+        throw new MessagingException("權限不足");
+    }
+
+    private UsernamePasswordAuthenticationToken authenticate(String authHeader) {
+        // 開發環境無 Token → 自動套用 admin Token（同 JwtFilter）
+        if ((authHeader == null || !authHeader.startsWith("Bearer ")) && "dev".equals(activeProfile)) {
+            authHeader = "Bearer " + jwtService.cachedAdminToken();
+        }
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new MessagingException("未登入");
+        }
+        UserPrincipal principal;
+        try {
+            principal = verifiedTokenCache.authenticate(authHeader.substring(7));
+        } catch (Exception e) {
+            throw new MessagingException("Token 無效");
+        }
+        return new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+    }
+}
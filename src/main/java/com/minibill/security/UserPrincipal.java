@@ -0,0 +1,80 @@
+package com.minibill.security;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.UUID;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// === 登入者身分 ===
+// 由 JwtFilter（HTTP）與 StompAuthChannelInterceptor（WebSocket）從 Token 建立，
+// Controller 直接取得 UUID 與權限等級，不需再以帳號查詢使用者。
+// getName() 為 UUID 字串，WebSocket 依此將 /user/queue/... 推送給對應的使用者
+public class UserPrincipal implements Principal, Serializable {
+
+    public static final int ADMIN_LEVEL = 99;
+
+    private final UUID uuid;
+    private final String account;
+    private final int permissionLevel;
+    // 本次登入所用 Access Token 的 jti 與到期時間（毫秒），登出時撤銷用；舊版 Token 沒有 jti
+    private final String tokenId;
+    private final long tokenExpiresAt;
+
+    public UserPrincipal(UUID uuid, String account, int permissionLevel, String tokenId, long tokenExpiresAt) {
+        this.uuid = uuid;
+        this.account = account;
+        this.permissionLevel = permissionLevel;
+        this.tokenId = tokenId;
+        this.tokenExpiresAt = tokenExpiresAt;
+    }
+
+    // 目前請求的登入者；未登入時拋出例外
+    public static UserPrincipal current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof UserPrincipal)) {
+            throw new RuntimeException("未授權");
+        }
+        return (UserPrincipal) auth.getPrincipal();
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public int getPermissionLevel() {
+        return permissionLevel;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public long getTokenExpiresAt() {
+        return tokenExpiresAt;
+    }
+
+    // 同一個 Token，權限等級換成目前的值（見 PermissionLevelCache）
+    public UserPrincipal withPermissionLevel(int level) {
+        return level == permissionLevel ? this : new UserPrincipal(uuid, account, level, tokenId, tokenExpiresAt);
+    }
+
+    public boolean isAdmin() {
+        return permissionLevel >= ADMIN_LEVEL;
+    }
+
+    @Override
+    public String getName() {
+        return uuid.toString();
+    }
+
+    @Override
+    public String toString() {
+        return account;
+    }
+}
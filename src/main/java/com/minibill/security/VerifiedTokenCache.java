@@ -0,0 +1,150 @@
+package com.minibill.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.minibill.auth.service.JwtService;
+import com.minibill.auth.service.TokenRevocationService;
+import com.minibill.user.repository.UserRepository;
+import com.minibill.user.service.PermissionLevelCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// === 已驗證 Token 的快取 ===
+// 同一個 Token 在有效期間內只驗一次簽章、解析一次 claims 並建立一次 UserPrincipal；以 Token 的 SHA-256 摘要為 key，不保存原始 Token。
+// 命中時仍檢查 exp，過期即移除並交由 JwtService 重新驗證（會拋出過期例外）；驗證失敗的 Token 不快取。
+// 每次（含命中）都以 TokenRevocationService 檢查 jti 是否已撤銷，並以 PermissionLevelCache 換上目前的權限等級，只查記憶體。
+// 筆數達上限時先清掉過期的，仍然滿就整個清空重新累積
+@Component
+public class VerifiedTokenCache {
+
+    private static class Entry {
+        private final UserPrincipal principal;
+        private final long expiresAt;
+
+        Entry(UserPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final PermissionLevelCache permissionLevelCache;
+    private final UserRepository userRepository;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+
+    public VerifiedTokenCache(JwtService jwtService, TokenRevocationService tokenRevocationService,
+                              PermissionLevelCache permissionLevelCache,
+                              UserRepository userRepository, MeterRegistry meterRegistry,
+                              @Value("${minibill.auth.token-cache.size:10000}") int maxSize) {
+        this.jwtService = jwtService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.permissionLevelCache = permissionLevelCache;
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.hitCounter = meterRegistry.counter("minibill.auth.token.cache", "result", "hit");
+        this.missCounter = meterRegistry.counter("minibill.auth.token.cache", "result", "miss");
+        this.hitTimer = meterRegistry.timer("minibill.auth.token.verify", "cached", "true");
+        this.missTimer = meterRegistry.timer("minibill.auth.token.verify", "cached", "false");
+        meterRegistry.gaugeMapSize("minibill.auth.token.cache.size", Collections.emptyList(), entries);
+    }
+
+    // Token 無效、過期或已撤銷時拋出 JwtException（同 JwtService.parseToken）
+    public UserPrincipal authenticate(String token) {
+        UserPrincipal principal = verify(token);
+        if (tokenRevocationService.isRevoked(principal.getTokenId())) {
+            throw new JwtException("Token 已撤銷");
+        }
+        // Token 裡的等級是簽發當時的值，權限異動後以目前的為準；沒有權限視為 0
+        Integer level = permissionLevelCache.get(principal.getUuid());
+        return principal.withPermissionLevel(level != null ? level : 0);
+    }
+
+    private UserPrincipal verify(String token) {
+        long start = System.nanoTime();
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (System.currentTimeMillis() < entry.expiresAt) {
+                hitCounter.increment();
+                hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return entry.principal;
+            }
+            entries.remove(key, entry);
+        }
+
+        missCounter.increment();
+        try {
+            Claims claims = jwtService.parseToken(token);
+            UserPrincipal principal = toPrincipal(claims);
+            Date expiration = claims.getExpiration();
+            if (expiration != null) {  // 沒有 exp 的 Token 不快取
+                put(key, new Entry(principal, expiration.getTime()));
+            }
+            return principal;
+        } finally {
+            missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 舊版 Token 沒有 uuid claim，以帳號查詢一次（之後同一個 Token 走快取）
+    private UserPrincipal toPrincipal(Claims claims) {
+        Object permissionLevel = claims.get(JwtService.PERMISSION_LEVEL_CLAIM);
+        int level = permissionLevel instanceof Number ? ((Number) permissionLevel).intValue() : 0;
+        String uuid = claims.get(JwtService.UUID_CLAIM, String.class);
+        UUID userUuid = uuid != null ? UUID.fromString(uuid)
+                : userRepository.findByAccount(claims.getSubject())
+                        .orElseThrow(() -> new JwtException("使用者不存在"))
+                        .getUuid();
+        Date expiration = claims.getExpiration();
+        return new UserPrincipal(userUuid, claims.getSubject(), level, claims.getId(),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+    }
+
+    private void put(String key, Entry entry) {
+        if (entries.size() >= maxSize) {
+            purgeExpired();
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    @Scheduled(fixedDelayString = "${minibill.auth.token-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
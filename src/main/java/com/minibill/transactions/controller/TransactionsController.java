@@ -1,64 +1,267 @@
 package com.minibill.transactions.controller;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.minibill.common.Money;
+import com.minibill.common.RecordFileReader;
 import com.minibill.security.PermissionRequired;
+import com.minibill.security.UserPrincipal;
+import com.minibill.transactions.dto.PaymentRecord;
+import com.minibill.transactions.dto.ReconciliationResult;
+import com.minibill.transactions.dto.TransactionBulkResult;
+import com.minibill.transactions.dto.TransactionCreateRequest;
 import com.minibill.transactions.dto.TransactionDTO;
+import com.minibill.transactions.dto.TransactionDelta;
+import com.minibill.transactions.dto.TransactionPage;
+import com.minibill.transactions.dto.TransactionSearchFilter;
+import com.minibill.transactions.model.IdempotencyKey;
 import com.minibill.transactions.model.Transactions;
+import com.minibill.transactions.model.UserBalance;
+import com.minibill.transactions.service.PaymentReconciliationService;
+import com.minibill.transactions.service.TransactionExportWriter;
+import com.minibill.transactions.service.TransactionIdempotencyService;
+import com.minibill.transactions.service.TransactionIngestService;
+import com.minibill.transactions.service.TransactionSyncService;
 import com.minibill.transactions.service.TransactionsService;
-import com.minibill.user.model.User;
-import com.minibill.user.repository.UserRepository;
+import com.minibill.transactions.service.UserBalanceService;
 
 @RestController
 @RequestMapping("/transactions")
 public class TransactionsController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final String EXPORT_TIMEOUT_KEY = TransactionsController.class.getName() + ".exportTimeout";
+
     private final TransactionsService transactionsService;
-    private final UserRepository userRepository;
+    private final TransactionIdempotencyService transactionIdempotencyService;
+    private final UserBalanceService userBalanceService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<TransactionIngestService> transactionIngestService;
+    private final TransactionSyncService transactionSyncService;
+    private final PaymentReconciliationService paymentReconciliationService;
+
+    @Value("${minibill.export.timeout-ms:3600000}")
+    private long exportTimeoutMs;
 
-    public TransactionsController(TransactionsService transactionsService, UserRepository userRepository) {
+    public TransactionsController(TransactionsService transactionsService,
+                                  TransactionIdempotencyService transactionIdempotencyService,
+                                  UserBalanceService userBalanceService, ObjectMapper objectMapper,
+                                  ObjectProvider<TransactionIngestService> transactionIngestService,
+                                  TransactionSyncService transactionSyncService,
+                                  PaymentReconciliationService paymentReconciliationService) {
         this.transactionsService = transactionsService;
-        this.userRepository = userRepository;
+        this.transactionIdempotencyService = transactionIdempotencyService;
+        this.userBalanceService = userBalanceService;
+        this.objectMapper = objectMapper;
+        this.transactionIngestService = transactionIngestService;
+        this.transactionSyncService = transactionSyncService;
+        this.paymentReconciliationService = paymentReconciliationService;
     }
 
     // === 建立交易 ===
     @PostMapping
     public ResponseEntity<Transactions> createTransaction(@RequestParam UUID catalogId,
-                                                          @RequestParam double amount,
-                                                          @RequestParam(required = false) UUID userId) {
-        UUID targetUserId;
-        
+                                                          @RequestParam BigDecimal amount,
+                                                          @RequestParam(required = false) UUID userId,
+                                                          @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null && idempotencyKey.length() > IdempotencyKey.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        UUID targetUserId = resolveTargetUser(userId);
+        if (targetUserId == null) {
+            return ResponseEntity.status(403).build();
+        }
+
+        // 呼叫 Service（帶 Idempotency-Key 的重送會回傳第一次建立的交易）
+        return ResponseEntity.ok(transactionIdempotencyService.createTransaction(targetUserId, catalogId, amount, idempotencyKey));
+    }
+
+    // === 高吞吐建立交易 ===
+    // 寫入 journal 並落盤後即回 202，交易稍後由背景批次寫入資料庫；未啟用時回 503，商品不存在回 400。
+    // 帶 Idempotency-Key 時同一個 key 一定得到同一個 UUID，落盤逾時等錯誤後可放心重送
+    @PostMapping("/ingest")
+    public ResponseEntity<UUID> ingestTransaction(@RequestParam UUID catalogId,
+                                                  @RequestParam BigDecimal amount,
+                                                  @RequestParam(required = false) UUID userId,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws IOException {
+        TransactionIngestService ingestService = transactionIngestService.getIfAvailable();
+        if (ingestService == null) {
+            return ResponseEntity.status(503).build();
+        }
+        if (idempotencyKey != null && idempotencyKey.length() > IdempotencyKey.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        UUID targetUserId = resolveTargetUser(userId);
+        if (targetUserId == null) {
+            return ResponseEntity.status(403).build();
+        }
+        if (!ingestService.catalogExists(catalogId)) {
+            return ResponseEntity.badRequest().build();
+        }
+        UUID uuid = ingestService.accept(targetUserId, catalogId, amount, idempotencyKey);
+        return ResponseEntity.accepted().location(URI.create("/transactions/" + uuid)).body(uuid);
+    }
+
+    // 未指定 userId 時為登入者自己；為其他使用者建立需要最高權限，權限不足回傳 null
+    private UUID resolveTargetUser(UUID userId) {
+        UserPrincipal user = UserPrincipal.current();
         if (userId != null) {
-            // 管理員為其他使用者新增交易，需要最高權限
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if ((Integer) auth.getDetails() < 99) {
-                return ResponseEntity.status(403).build();
+            return user.isAdmin() ? userId : null;
+        }
+        return user.getUuid();
+    }
+
+    // === 批次建立交易 (僅最高權限可用) ===
+    // JSON 陣列
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PermissionRequired(99)
+    public ResponseEntity<TransactionBulkResult> createTransactionsBulk(@RequestBody List<TransactionCreateRequest> rows) {
+        TransactionBulkResult result = new TransactionBulkResult();
+        for (int from = 0; from < rows.size(); from += TransactionsService.BULK_CHUNK_SIZE) {
+            int to = Math.min(from + TransactionsService.BULK_CHUNK_SIZE, rows.size());
+            importChunk(rows.subList(from, to), from, result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // NDJSON：一行一筆，邊讀邊分批寫入，不需把整個檔案放進記憶體
+    @PostMapping(value = "/bulk", consumes = NDJSON_VALUE)
+    @PermissionRequired(99)
+    public ResponseEntity<TransactionBulkResult> createTransactionsBulkNdjson(HttpServletRequest request) throws IOException {
+        TransactionBulkResult result = new TransactionBulkResult();
+        ObjectReader reader = objectMapper.readerFor(TransactionCreateRequest.class);
+        List<TransactionCreateRequest> chunk = new ArrayList<>(TransactionsService.BULK_CHUNK_SIZE);
+        int index = 0;
+        int chunkStart = 0;
+
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                TransactionCreateRequest row;
+                try {
+                    row = reader.readValue(line);
+                } catch (IOException e) {
+                    row = null; // 無法解析，交由 Service 記錄為失敗
+                }
+                chunk.add(row);
+                index++;
+                if (chunk.size() == TransactionsService.BULK_CHUNK_SIZE) {
+                    importChunk(chunk, chunkStart, result);
+                    chunk.clear();
+                    chunkStart = index;
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, chunkStart, result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // 每批獨立交易；整批寫入失敗時該批每一筆都記為失敗，其他批次照常進行
+    private void importChunk(List<TransactionCreateRequest> chunk, int firstIndex, TransactionBulkResult result) {
+        try {
+            result.merge(transactionsService.createTransactionsBulk(chunk, firstIndex));
+        } catch (RuntimeException e) {
+            TransactionBulkResult failed = new TransactionBulkResult();
+            failed.setTotal(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                failed.addFailure(firstIndex + i, "批次寫入失敗：" + e.getMessage());
+            }
+            result.merge(failed);
+        }
+    }
+
+    // === 付款對帳 (僅最高權限可用) ===
+    // 上傳銀行入帳檔（CSV 或 NDJSON），邊讀邊分批比對並標記已付款，回傳比對結果與未比對清單
+    @PostMapping(value = "/reconcile", consumes = {"text/csv", NDJSON_VALUE})
+    @PermissionRequired(99)
+    public ResponseEntity<ReconciliationResult> reconcilePayments(HttpServletRequest request) throws IOException {
+        boolean csv = !request.getContentType().startsWith(NDJSON_VALUE);
+        ReconciliationResult result = new ReconciliationResult();
+        int index = 0;
+
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            RecordFileReader<PaymentRecord> reader = new RecordFileReader<>(csv, lines,
+                    objectMapper.readerFor(PaymentRecord.class));
+            List<PaymentRecord> chunk;
+            while (!(chunk = reader.readChunk(TransactionsService.BULK_CHUNK_SIZE)).isEmpty()) {
+                reconcileChunk(chunk, index, result);
+                index += chunk.size();
             }
-            targetUserId = userId;
-        } else {
-            // 一般使用者為自己新增交易
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String account = auth.getName();
-            User user = userRepository.findByAccount(account)
-                    .orElseThrow(() -> new RuntimeException("使用者不存在"));
-            targetUserId = user.getUuid();
         }
+        return ResponseEntity.ok(result);
+    }
 
-        // 呼叫 Service
-        return ResponseEntity.ok(transactionsService.createTransaction(targetUserId, catalogId, amount));
+    // 每批獨立交易；比對期間有交易被他人修改時重新比對一次，仍失敗則該批每一筆都記為未比對
+    private void reconcileChunk(List<PaymentRecord> chunk, int firstIndex, ReconciliationResult result) {
+        try {
+            try {
+                result.merge(paymentReconciliationService.reconcileChunk(chunk, firstIndex));
+            } catch (OptimisticLockingFailureException e) {
+                result.merge(paymentReconciliationService.reconcileChunk(chunk, firstIndex));
+            }
+        } catch (RuntimeException e) {
+            ReconciliationResult failed = new ReconciliationResult();
+            failed.setTotal(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                PaymentRecord row = chunk.get(i);
+                failed.addUnmatched(firstIndex + i, row == null ? null : row.getReference(),
+                        "批次處理失敗：" + e.getMessage());
+            }
+            result.merge(failed);
+        }
     }
 
     // === 刪除交易 (僅最高權限可用) ===
@@ -73,53 +276,213 @@ public class TransactionsController {
     @PutMapping("/{id}")
     public ResponseEntity<TransactionDTO> updateTransaction(@PathVariable UUID id,
                                                            @RequestParam(required = false) UUID catalogId,
-                                                           @RequestParam(required = false) Double amount,
-                                                           @RequestParam(required = false) Boolean isPaid) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        
+                                                           @RequestParam(required = false) BigDecimal amount,
+                                                           @RequestParam(required = false) Boolean isPaid,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // 檢查權限：只有最高權限者可以修改交易
-        boolean isAdmin = (Integer) auth.getDetails() >= 99;
-        
-        if (!isAdmin) {
+        if (!UserPrincipal.current().isAdmin()) {
             return ResponseEntity.status(403).build();
         }
         
-        TransactionDTO updatedTransaction = transactionsService.updateTransaction(id, catalogId, amount, isPaid);
-        return ResponseEntity.ok(updatedTransaction);
+        // If-Match 帶入上次取得的 ETag（版本號），版本不符回 412；未帶 If-Match 但同時被他人修改則回 409
+        try {
+            TransactionDTO updatedTransaction = transactionsService.updateTransaction(id, catalogId, amount, isPaid,
+                    parseVersion(ifMatch));
+            return ResponseEntity.ok().eTag(toETag(updatedTransaction)).body(updatedTransaction);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch != null ? 412 : 409).build();
+        }
     }
 
     // === 查詢所有交易 (僅最高權限可用) ===
+    // 分頁：以 cursor 接續上一頁，下一頁游標放在 X-Next-Cursor 標頭
+    // 帶 If-None-Match / If-Modified-Since 且期間無異動時回 304，不執行清單查詢
     @GetMapping
     @PermissionRequired(99)
-    public ResponseEntity<List<TransactionDTO>> getAllTransactions() {
-        return ResponseEntity.ok(transactionsService.getAllTransactions());
+    public ResponseEntity<List<TransactionDTO>> getAllTransactions(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer size,
+                                                                   WebRequest webRequest) {
+        long lastModified = transactionSyncService.lastModified(null);
+        if (webRequest.checkNotModified(transactionSyncService.listETag(lastModified), lastModified)) {
+            return null;
+        }
+        return toPageResponse(transactionsService.getAllTransactions(cursor, size));
+    }
+
+    // === 條件查詢交易 (僅最高權限可用) ===
+    // 條件皆可省略並可任意組合；from/to 為建立日期（含），金額以一般金額表示並依 currency（預設 TWD）換算
+    // sort: createdAt | dateline | amount，direction: desc | asc；下一頁游標放在 X-Next-Cursor 標頭
+    @GetMapping("/search")
+    @PermissionRequired(99)
+    public ResponseEntity<List<TransactionDTO>> searchTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Boolean isPaid,
+            @RequestParam(required = false) Boolean isOverdue,
+            @RequestParam(required = false) UUID catalogId,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        if (currency != null && !Money.isValidCurrency(currency)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // 金額以各幣別的最小單位儲存，不同幣別的數值無法互相比較，指定金額範圍時必須指定幣別
+        if ((minAmount != null || maxAmount != null) && currency == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        filter.setFrom(from == null ? null : Timestamp.valueOf(from.atStartOfDay()));
+        filter.setTo(to == null ? null : Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        filter.setIsPaid(isPaid);
+        filter.setIsOverdue(isOverdue);
+        filter.setCatalogId(catalogId);
+        filter.setUserId(userId);
+        filter.setCurrency(currency);
+        filter.setMinAmountMinor(minAmount == null ? null : Money.toMinor(minAmount, currency));
+        filter.setMaxAmountMinor(maxAmount == null ? null : Money.toMinor(maxAmount, currency));
+        filter.setSort(TransactionSearchFilter.Sort.of(sort));
+        filter.setDescending(!"asc".equalsIgnoreCase(direction));
+        return toPageResponse(transactionsService.searchTransactions(filter, cursor, size));
+    }
+
+    // === 匯出交易 (僅最高權限可用) ===
+    // format: ndjson | csv；from/to 為建立日期（含），isPaid 可選
+    @GetMapping("/export")
+    @PermissionRequired(99)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Boolean isPaid,
+            WebRequest webRequest) {
+        TransactionExportWriter.Format exportFormat = TransactionExportWriter.Format.of(format);
+        Timestamp fromTs = from == null ? null : Timestamp.valueOf(from.atStartOfDay());
+        Timestamp toTs = to == null ? null : Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            transactionsService.exportTransactions(fromTs, toTs, isPaid,
+                    new TransactionExportWriter(exportFormat, writer, objectMapper));
+            writer.flush();
+        };
+        // 匯出可能執行很久，只放寬這個請求的非同步逾時，其他非同步端點維持預設
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(EXPORT_TIMEOUT_KEY,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        ((AsyncWebRequest) request).setTimeout(exportTimeoutMs);
+                    }
+                });
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions." + exportFormat.getExtension() + "\"")
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .body(body);
     }
 
     // === 查詢登入者自己的所有交易 ===
     @GetMapping("/my")
-    public ResponseEntity<List<TransactionDTO>> getMyTransactions() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String account = auth.getName();
-        User user = userRepository.findByAccount(account)
-                .orElseThrow(() -> new RuntimeException("使用者不存在"));
-        return ResponseEntity.ok(transactionsService.getTransactionsByUser(user.getUuid()));
+    public ResponseEntity<List<TransactionDTO>> getMyTransactions(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer size,
+                                                                  WebRequest webRequest) {
+        UserPrincipal user = UserPrincipal.current();
+        long lastModified = transactionSyncService.lastModified(user.getUuid());
+        if (webRequest.checkNotModified(transactionSyncService.listETag(lastModified), lastModified)) {
+            return null;
+        }
+        return toPageResponse(transactionsService.getTransactionsByUser(user.getUuid(), cursor, size));
+    }
+
+    // === 增量同步：只回傳 watermark 之後新增、修改與刪除的交易 ===
+    // 第一次以 since=0 取得完整快照與 watermark，之後帶回傳的 watermark 接續；
+    // watermark 過舊時回 410，需再以 since=0 重新載入
+    @GetMapping(value = "/my", params = "since")
+    public ResponseEntity<TransactionDelta> getMyTransactionChanges(@RequestParam String since) {
+        UserPrincipal user = UserPrincipal.current();
+        Timestamp sinceTs = transactionSyncService.parseWatermark(since);
+        if (transactionSyncService.isSnapshot(sinceTs)) {
+            return ResponseEntity.ok(transactionSyncService.getSnapshotByUser(user.getUuid()));
+        }
+        if (transactionSyncService.isExpired(sinceTs)) {
+            return ResponseEntity.status(410).build();
+        }
+        return ResponseEntity.ok(transactionSyncService.getChangesByUser(user.getUuid(), sinceTs));
+    }
+
+    // === 查詢登入者自己的帳款摘要（每個幣別一筆） ===
+    @GetMapping("/my/summary")
+    public ResponseEntity<List<UserBalance>> getMySummary() {
+        UserPrincipal user = UserPrincipal.current();
+        return ResponseEntity.ok(userBalanceService.getBalances(user.getUuid()));
+    }
+
+    // === 查詢指定使用者的帳款摘要 (僅最高權限可用) ===
+    @GetMapping("/summary/{userId}")
+    @PermissionRequired(99)
+    public ResponseEntity<List<UserBalance>> getUserSummary(@PathVariable UUID userId) {
+        return ResponseEntity.ok(userBalanceService.getBalances(userId));
+    }
+
+    // === 重建所有帳款摘要 (僅最高權限可用) ===
+    @PostMapping("/summary/rebuild")
+    @PermissionRequired(99)
+    public ResponseEntity<String> rebuildSummaries() {
+        int users = userBalanceService.rebuildAll();
+        return ResponseEntity.ok("已重建 " + users + " 位使用者的帳款摘要");
     }
 
     // === 查詢單筆交易 ===
     @GetMapping("/{id}")
     public ResponseEntity<TransactionDTO> getTransactionById(@PathVariable UUID id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String account = auth.getName();
-        User user = userRepository.findByAccount(account)
-                .orElseThrow(() -> new RuntimeException("使用者不存在"));
+        UserPrincipal user = UserPrincipal.current();
 
         TransactionDTO transaction = transactionsService.getTransactionById(id);
 
         // 檢查是否為最高權限或自己的交易
-        if (!transaction.getUserUuid().equals(user.getUuid()) && (Integer) auth.getDetails() < 99) {
+        if (!transaction.getUserUuid().equals(user.getUuid()) && !user.isAdmin()) {
             return ResponseEntity.status(403).build();
         }
 
-        return ResponseEntity.ok(transaction);
+        // ETag 與 Last-Modified 符合時由 Spring 回 304
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(toETag(transaction));
+        if (transaction.getUpdatedAt() != null) {
+            builder.lastModified(transaction.getUpdatedAt().getTime());
+        }
+        return builder.body(transaction);
+    }
+
+    // ETag 即版本號
+    private String toETag(TransactionDTO transaction) {
+        return "\"" + transaction.getVersion() + "\"";
+    }
+
+    // 接受 "3"、W/"3"；"*" 或未帶則不檢查版本
+    private Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return -1L; // 無法解析的 ETag 不可能符合任何版本
+        }
+    }
+
+    private ResponseEntity<List<TransactionDTO>> toPageResponse(TransactionPage page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getItems());
     }
 }
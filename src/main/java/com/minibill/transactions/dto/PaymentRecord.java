@@ -0,0 +1,34 @@
+package com.minibill.transactions.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// 對帳檔中的一筆入帳：有 uuid 時直接比對交易，否則以 (userId, amount, dateline) 比對未付款交易
+public class PaymentRecord {
+    private UUID uuid;
+    private UUID userId;
+    private BigDecimal amount;     // 一般金額；以 uuid 比對時選填，填了會檢查是否相符
+    private String currency;       // 選填，預設 TWD
+    private LocalDate dateline;
+    private String reference;      // 選填：銀行端的入帳編號，原樣帶回未比對清單
+
+    // Getter / Setter
+    public UUID getUuid() { return uuid; }
+    public void setUuid(UUID uuid) { this.uuid = uuid; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public LocalDate getDateline() { return dateline; }
+    public void setDateline(LocalDate dateline) { this.dateline = dateline; }
+
+    public String getReference() { return reference; }
+    public void setReference(String reference) { this.reference = reference; }
+}
@@ -0,0 +1,67 @@
+package com.minibill.transactions.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ReconciliationResult {
+    private int total;
+    private int matched;          // 本次標記為已付款
+    private int alreadyPaid;      // 交易原本就已付款（含已封存），視為已完成
+    private long matchedMinor;    // 本次標記金額合計（最小貨幣單位）
+    private List<Unmatched> unmatched = new ArrayList<>();
+
+    // 未比對成功的一筆：index 為該筆在檔案中的位置（從 0 起算，不含標題列）
+    public static class Unmatched {
+        private int index;
+        private String reference;
+        private String message;
+
+        public Unmatched() {}
+
+        public Unmatched(int index, String reference, String message) {
+            this.index = index;
+            this.reference = reference;
+            this.message = message;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public String getReference() { return reference; }
+        public void setReference(String reference) { this.reference = reference; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public void addUnmatched(int index, String reference, String message) {
+        unmatched.add(new Unmatched(index, reference, message));
+    }
+
+    // 合併分批結果
+    public void merge(ReconciliationResult other) {
+        total += other.total;
+        matched += other.matched;
+        alreadyPaid += other.alreadyPaid;
+        matchedMinor += other.matchedMinor;
+        other.unmatched.sort(Comparator.comparingInt(Unmatched::getIndex));
+        unmatched.addAll(other.unmatched);
+    }
+
+    // Getter / Setter
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getMatched() { return matched; }
+    public void setMatched(int matched) { this.matched = matched; }
+
+    public int getAlreadyPaid() { return alreadyPaid; }
+    public void setAlreadyPaid(int alreadyPaid) { this.alreadyPaid = alreadyPaid; }
+
+    public long getMatchedMinor() { return matchedMinor; }
+    public void setMatchedMinor(long matchedMinor) { this.matchedMinor = matchedMinor; }
+
+    public List<Unmatched> getUnmatched() { return unmatched; }
+    public void setUnmatched(List<Unmatched> unmatched) { this.unmatched = unmatched; }
+}
@@ -0,0 +1,55 @@
+package com.minibill.transactions.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionBulkResult {
+    private int total;
+    private int created;
+    private int skipped;     // 預先指定的 UUID 已存在（重送），視為已完成
+    private List<Failure> failures = new ArrayList<>();
+
+    // 單筆失敗：index 為該筆在請求中的位置（從 0 起算）
+    public static class Failure {
+        private int index;
+        private String message;
+
+        public Failure() {}
+
+        public Failure(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public void addFailure(int index, String message) {
+        failures.add(new Failure(index, message));
+    }
+
+    // 合併分批結果
+    public void merge(TransactionBulkResult other) {
+        total += other.total;
+        created += other.created;
+        skipped += other.skipped;
+        failures.addAll(other.failures);
+    }
+
+    // Getter / Setter
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public int getSkipped() { return skipped; }
+    public void setSkipped(int skipped) { this.skipped = skipped; }
+
+    public List<Failure> getFailures() { return failures; }
+    public void setFailures(List<Failure> failures) { this.failures = failures; }
+}
@@ -0,0 +1,24 @@
+package com.minibill.transactions.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public class TransactionCreateRequest {
+    private UUID uuid;           // 選填：預先指定交易 UUID，重送時已存在的會略過
+    private UUID userId;
+    private UUID catalogId;
+    private BigDecimal amount;   // 一般金額，依商品幣別換算
+
+    // Getter / Setter
+    public UUID getUuid() { return uuid; }
+    public void setUuid(UUID uuid) { this.uuid = uuid; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public UUID getCatalogId() { return catalogId; }
+    public void setCatalogId(UUID catalogId) { this.catalogId = catalogId; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+}
@@ -0,0 +1,49 @@
+package com.minibill.transactions.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.UUID;
+
+// 分頁游標：記錄上一頁最後一筆的 (created_at, uuid)，對外以不透明字串傳遞
+public class TransactionCursor {
+    private final Timestamp createdAt;
+    private final UUID uuid;
+
+    public TransactionCursor(Timestamp createdAt, UUID uuid) {
+        this.createdAt = createdAt;
+        this.uuid = uuid;
+    }
+
+    public static TransactionCursor of(TransactionDTO last) {
+        return new TransactionCursor(last.getCreatedAt(), last.getUuid());
+    }
+
+    // 格式：epochSecond:nanos:uuid，再以 Base64 URL-safe 編碼
+    public String encode() {
+        long epochSecond = Math.floorDiv(createdAt.getTime(), 1000L);
+        String raw = epochSecond + ":" + createdAt.getNanos() + ":" + uuid;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            Timestamp createdAt = new Timestamp(Long.parseLong(parts[0]) * 1000L);
+            createdAt.setNanos(Integer.parseInt(parts[1]));
+            return new TransactionCursor(createdAt, UUID.fromString(parts[2]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("無效的分頁游標");
+        }
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+}
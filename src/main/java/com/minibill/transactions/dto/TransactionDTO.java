@@ -1,9 +1,12 @@
 package com.minibill.transactions.dto;
 
+import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.UUID;
 
+import com.minibill.common.Money;
+
 public class TransactionDTO {
     private UUID uuid;
     private UUID userUuid;
@@ -12,19 +15,25 @@ public class TransactionDTO {
     private UUID catalogUuid;
     private String catalogName;
     private String catalogDescription;
-    private Double catalogPrice;
-    private Double amount;
+    private Long catalogPriceMinor;
+    private Long amountMinor;
+    private String currency;
     private Timestamp createdAt;
     private LocalDate dateline;
     private Boolean isPaid;
+    private Boolean isOverdue;
+    private Long version;
+    private Timestamp updatedAt;
 
     // Constructors
     public TransactionDTO() {}
 
+    // 亦供 TransactionsRepository 的 JPQL constructor expression 使用，參數順序需與查詢一致
     public TransactionDTO(UUID uuid, UUID userUuid, String userName, String userAccount,
                          UUID catalogUuid, String catalogName, String catalogDescription, 
-                         Double catalogPrice, Double amount, Timestamp createdAt, 
-                         LocalDate dateline, Boolean isPaid) {
+                         Long catalogPriceMinor, Long amountMinor, String currency, Timestamp createdAt,
+                         LocalDate dateline, Boolean isPaid, Boolean isOverdue, Long version,
+                         Timestamp updatedAt) {
         this.uuid = uuid;
         this.userUuid = userUuid;
         this.userName = userName;
@@ -32,11 +41,15 @@ public class TransactionDTO {
         this.catalogUuid = catalogUuid;
         this.catalogName = catalogName;
         this.catalogDescription = catalogDescription;
-        this.catalogPrice = catalogPrice;
-        this.amount = amount;
+        this.catalogPriceMinor = catalogPriceMinor;
+        this.amountMinor = amountMinor;
+        this.currency = currency;
         this.createdAt = createdAt;
         this.dateline = dateline;
         this.isPaid = isPaid;
+        this.isOverdue = isOverdue;
+        this.version = version;
+        this.updatedAt = updatedAt;
     }
 
     // Getters and Setters
@@ -96,20 +109,37 @@ public class TransactionDTO {
         this.catalogDescription = catalogDescription;
     }
 
-    public Double getCatalogPrice() {
-        return catalogPrice;
+    public Long getCatalogPriceMinor() {
+        return catalogPriceMinor;
+    }
+
+    public void setCatalogPriceMinor(Long catalogPriceMinor) {
+        this.catalogPriceMinor = catalogPriceMinor;
     }
 
-    public void setCatalogPrice(Double catalogPrice) {
-        this.catalogPrice = catalogPrice;
+    public Long getAmountMinor() {
+        return amountMinor;
     }
 
-    public Double getAmount() {
-        return amount;
+    public void setAmountMinor(Long amountMinor) {
+        this.amountMinor = amountMinor;
     }
 
-    public void setAmount(Double amount) {
-        this.amount = amount;
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    // 一般金額，僅供顯示（JSON 仍輸出 catalogPrice / amount 欄位）
+    public BigDecimal getCatalogPrice() {
+        return catalogPriceMinor == null ? null : Money.toMajor(catalogPriceMinor, currency);
+    }
+
+    public BigDecimal getAmount() {
+        return amountMinor == null ? null : Money.toMajor(amountMinor, currency);
     }
 
     public Timestamp getCreatedAt() {
@@ -135,4 +165,28 @@ public class TransactionDTO {
     public void setIsPaid(Boolean isPaid) {
         this.isPaid = isPaid;
     }
+
+    public Boolean getIsOverdue() {
+        return isOverdue;
+    }
+
+    public void setIsOverdue(Boolean isOverdue) {
+        this.isOverdue = isOverdue;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
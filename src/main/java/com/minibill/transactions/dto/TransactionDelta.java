@@ -0,0 +1,45 @@
+package com.minibill.transactions.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// 增量同步結果：watermark 之後新增或修改的交易、被刪除的交易 UUID，以及下次要帶入的 watermark
+public class TransactionDelta {
+    private List<TransactionDTO> changed;
+    private List<UUID> deleted;
+    private String watermark;
+
+    // Constructors
+    public TransactionDelta() {}
+
+    public TransactionDelta(List<TransactionDTO> changed, List<UUID> deleted, String watermark) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.watermark = watermark;
+    }
+
+    // Getters and Setters
+    public List<TransactionDTO> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(List<TransactionDTO> changed) {
+        this.changed = changed;
+    }
+
+    public List<UUID> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<UUID> deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+}
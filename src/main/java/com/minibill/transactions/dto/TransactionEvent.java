@@ -0,0 +1,70 @@
+package com.minibill.transactions.dto;
+
+import java.util.UUID;
+
+// 交易異動事件：由 TransactionsService 發出，提交後經 WebSocket 推送給訂閱者
+// 推送時 CREATED / UPDATED 附上最新的交易內容，DELETED 只有 uuid
+public class TransactionEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED;
+
+        // 同一筆交易在一次推送間隔內的多個事件合併為一個；回傳 null 表示互相抵銷
+        public static Type merge(Type previous, Type next) {
+            if (previous == CREATED && next == DELETED) {
+                return null;
+            }
+            if (previous == CREATED) {
+                return CREATED;
+            }
+            return next;
+        }
+    }
+
+    private Type type;
+    private UUID uuid;
+    private UUID userUuid;
+    private TransactionDTO transaction;
+
+    // Constructors
+    public TransactionEvent() {}
+
+    public TransactionEvent(Type type, UUID uuid, UUID userUuid) {
+        this.type = type;
+        this.uuid = uuid;
+        this.userUuid = userUuid;
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    public UUID getUserUuid() {
+        return userUuid;
+    }
+
+    public void setUserUuid(UUID userUuid) {
+        this.userUuid = userUuid;
+    }
+
+    public TransactionDTO getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(TransactionDTO transaction) {
+        this.transaction = transaction;
+    }
+}
@@ -0,0 +1,33 @@
+package com.minibill.transactions.dto;
+
+import java.util.List;
+
+public class TransactionPage {
+    private List<TransactionDTO> items;
+    private String nextCursor;
+
+    // Constructors
+    public TransactionPage() {}
+
+    public TransactionPage(List<TransactionDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<TransactionDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TransactionDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
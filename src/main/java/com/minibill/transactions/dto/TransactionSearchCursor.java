@@ -0,0 +1,94 @@
+package com.minibill.transactions.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.UUID;
+
+// 查詢分頁游標：記錄上一頁最後一筆的 (排序欄位值, uuid)，並綁定排序欄位，換排序時游標失效
+public class TransactionSearchCursor {
+    private final TransactionSearchFilter.Sort sort;
+    private final Comparable<?> value;
+    private final UUID uuid;
+
+    public TransactionSearchCursor(TransactionSearchFilter.Sort sort, Comparable<?> value, UUID uuid) {
+        this.sort = sort;
+        this.value = value;
+        this.uuid = uuid;
+    }
+
+    public static TransactionSearchCursor of(TransactionSearchFilter.Sort sort, TransactionDTO last) {
+        switch (sort) {
+            case DATELINE:
+                return new TransactionSearchCursor(sort, last.getDateline(), last.getUuid());
+            case AMOUNT:
+                return new TransactionSearchCursor(sort, last.getAmountMinor(), last.getUuid());
+            default:
+                return new TransactionSearchCursor(sort, last.getCreatedAt(), last.getUuid());
+        }
+    }
+
+    // 格式：sort:value:uuid，再以 Base64 URL-safe 編碼
+    // createdAt 以 epochSecond.nanos、dateline 以 epochDay、amount 以最小貨幣單位表示
+    public String encode() {
+        String encodedValue;
+        switch (sort) {
+            case DATELINE:
+                encodedValue = String.valueOf(((LocalDate) value).toEpochDay());
+                break;
+            case AMOUNT:
+                encodedValue = String.valueOf(value);
+                break;
+            default:
+                Timestamp createdAt = (Timestamp) value;
+                encodedValue = Math.floorDiv(createdAt.getTime(), 1000L) + "." + createdAt.getNanos();
+        }
+        String raw = sort.getParam() + ":" + encodedValue + ":" + uuid;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionSearchCursor decode(String token, TransactionSearchFilter.Sort expected) {
+        TransactionSearchFilter.Sort sort;
+        Comparable<?> value;
+        UUID uuid;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            sort = TransactionSearchFilter.Sort.of(parts[0]);
+            switch (sort) {
+                case DATELINE:
+                    value = LocalDate.ofEpochDay(Long.parseLong(parts[1]));
+                    break;
+                case AMOUNT:
+                    value = Long.valueOf(parts[1]);
+                    break;
+                default:
+                    String[] time = parts[1].split("\\.", 2);
+                    Timestamp createdAt = new Timestamp(Long.parseLong(time[0]) * 1000L);
+                    createdAt.setNanos(Integer.parseInt(time[1]));
+                    value = createdAt;
+            }
+            uuid = UUID.fromString(parts[2]);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("無效的分頁游標");
+        }
+        if (sort != expected) {
+            throw new RuntimeException("分頁游標與排序欄位不符");
+        }
+        return new TransactionSearchCursor(sort, value, uuid);
+    }
+
+    public TransactionSearchFilter.Sort getSort() {
+        return sort;
+    }
+
+    public Comparable<?> getValue() {
+        return value;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+}
@@ -0,0 +1,80 @@
+package com.minibill.transactions.dto;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+// 交易查詢條件：各條件皆可省略，有值者以 AND 組合
+public class TransactionSearchFilter {
+
+    // 可排序欄位；每個欄位都搭配 uuid 作為同值時的次序，才能以游標接續
+    public enum Sort {
+        CREATED_AT("createdAt"),
+        DATELINE("dateline"),
+        AMOUNT("amount");
+
+        private final String param;
+
+        Sort(String param) {
+            this.param = param;
+        }
+
+        public String getParam() {
+            return param;
+        }
+
+        public static Sort of(String value) {
+            for (Sort sort : values()) {
+                if (sort.param.equalsIgnoreCase(value)) {
+                    return sort;
+                }
+            }
+            throw new RuntimeException("不支援的排序欄位：" + value);
+        }
+    }
+
+    private Timestamp from;        // 建立時間（含）
+    private Timestamp to;          // 建立時間（不含）
+    private Boolean isPaid;
+    private Boolean isOverdue;
+    private UUID catalogId;
+    private UUID userId;
+    private String currency;
+    private Long minAmountMinor;   // 金額下限（含），最小貨幣單位
+    private Long maxAmountMinor;   // 金額上限（含），最小貨幣單位
+    private Sort sort = Sort.CREATED_AT;
+    private boolean descending = true;
+
+    // Getter / Setter
+    public Timestamp getFrom() { return from; }
+    public void setFrom(Timestamp from) { this.from = from; }
+
+    public Timestamp getTo() { return to; }
+    public void setTo(Timestamp to) { this.to = to; }
+
+    public Boolean getIsPaid() { return isPaid; }
+    public void setIsPaid(Boolean isPaid) { this.isPaid = isPaid; }
+
+    public Boolean getIsOverdue() { return isOverdue; }
+    public void setIsOverdue(Boolean isOverdue) { this.isOverdue = isOverdue; }
+
+    public UUID getCatalogId() { return catalogId; }
+    public void setCatalogId(UUID catalogId) { this.catalogId = catalogId; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public Long getMinAmountMinor() { return minAmountMinor; }
+    public void setMinAmountMinor(Long minAmountMinor) { this.minAmountMinor = minAmountMinor; }
+
+    public Long getMaxAmountMinor() { return maxAmountMinor; }
+    public void setMaxAmountMinor(Long maxAmountMinor) { this.maxAmountMinor = maxAmountMinor; }
+
+    public Sort getSort() { return sort; }
+    public void setSort(Sort sort) { this.sort = sort; }
+
+    public boolean isDescending() { return descending; }
+    public void setDescending(boolean descending) { this.descending = descending; }
+}
@@ -0,0 +1,121 @@
+package com.minibill.transactions.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Objects;
+import java.util.UUID;
+
+// POST /transactions 的 Idempotency-Key 紀錄，主鍵 (user_uuid, idem_key) 即唯一限制：
+// 每位使用者各自的 key 只能建立一筆交易，不同使用者用到相同的 key 互不影響。
+// 主鍵由呼叫端指定，實作 Persistable 讓 save 一律走 persist（INSERT），重複的 key 才會撞到主鍵；
+// 否則 Spring Data 會改用 merge，先讀出既有的列再靜默略過
+@Entity
+@Table(name = "idempotency_key", indexes = {
+    @Index(name = "idx_idempotency_key_created", columnList = "created_at")
+})
+@IdClass(IdempotencyKey.Key.class)
+public class IdempotencyKey implements Persistable<IdempotencyKey.Key> {
+    public static final int MAX_KEY_LENGTH = 100;
+
+    @Id
+    @Column(name = "user_uuid", nullable = false, updatable = false)
+    private UUID userUuid;
+
+    @Id
+    @Column(name = "idem_key", length = MAX_KEY_LENGTH, updatable = false, nullable = false)
+    private String key;
+
+    @Column(name = "transaction_uuid", nullable = false, updatable = false)
+    private UUID transactionUuid;
+
+    @Column(name = "created_at", updatable = false)
+    @CreationTimestamp
+    private Timestamp createdAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public IdempotencyKey() {}
+
+    public IdempotencyKey(String key, UUID userUuid, UUID transactionUuid) {
+        this.key = key;
+        this.userUuid = userUuid;
+        this.transactionUuid = transactionUuid;
+    }
+
+    public String getKey() {
+        return key;
+    }
+    public UUID getUserUuid() {
+        return userUuid;
+    }
+    public UUID getTransactionUuid() {
+        return transactionUuid;
+    }
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(userUuid, key);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    // 複合主鍵 (user_uuid, idem_key)
+    public static class Key implements Serializable {
+        private UUID userUuid;
+        private String key;
+
+        public Key() {}
+
+        public Key(UUID userUuid, String key) {
+            this.userUuid = userUuid;
+            this.key = key;
+        }
+
+        public UUID getUserUuid() {
+            return userUuid;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return Objects.equals(userUuid, other.userUuid) && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userUuid, key);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.minibill.transactions.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// 排程工作的叢集鎖：每個工作一列，執行期間以 SELECT ... FOR UPDATE SKIP LOCKED 鎖住，
+// 同時間只有一個節點會執行；節點當機時連線中斷，鎖隨交易一起釋放
+@Entity
+@Table(name = "scheduled_job_lock")
+public class ScheduledJobLock {
+
+    @Id
+    @Column(name = "name", length = 64, updatable = false, nullable = false)
+    private String name;
+
+    public ScheduledJobLock() {}
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,121 @@
+package com.minibill.transactions.model;
+
+import com.minibill.catalog.model.Catalog;
+import com.minibill.user.model.User;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// === 已封存的交易 ===
+// 超過保留期限的已付款交易由 TransactionArchiveJob 從 transactions 搬移至此，欄位與 Transactions 相同。
+// 只由搬移的原生 SQL 寫入，之後不再修改，因此沒有 @Version 與 UUID 產生器。
+@Entity
+@Table(name = "transactions_archive", indexes = {
+    @Index(name = "idx_tx_archive_created", columnList = "created_at, uuid"),
+    @Index(name = "idx_tx_archive_user_created", columnList = "user_uuid, created_at, uuid"),
+    // 搬移時以 archived_at 找出同一批的資料
+    @Index(name = "idx_tx_archive_archived", columnList = "archived_at")
+})
+public class TransactionArchive {
+    @Id
+    @Column(updatable = false, nullable = false)
+    private UUID uuid;
+
+    @ManyToOne
+    @JoinColumn(name = "user_uuid", nullable = false)
+    private User user;
+
+    @ManyToOne
+    @JoinColumn(name = "catalog_uuid", nullable = false)
+    private Catalog catalog;
+
+    @Column(name = "catalog_name")
+    private String catalogName;
+
+    @Column(name = "catalog_description")
+    private String catalogDescription;
+
+    @Column(name = "catalog_price_minor", columnDefinition = "NUMBER(19,0)")
+    private Long catalogPriceMinor;
+
+    @Column(name = "amount_minor", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private long amountMinor;
+
+    @Column(name = "currency", length = 3, columnDefinition = "VARCHAR2(3) DEFAULT 'TWD' NOT NULL")
+    private String currency;
+
+    @Column(name = "created_at")
+    private Timestamp createdAt;
+
+    private LocalDate dateline;
+
+    @Column(name = "is_paid")
+    private Boolean isPaid;
+
+    @Column(name = "is_overdue")
+    private Boolean isOverdue;
+
+    @Column(name = "version", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private Long version;
+
+    @Column(name = "updated_at", columnDefinition = "TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL")
+    private Timestamp updatedAt;
+
+    @Column(name = "archived_at")
+    private Timestamp archivedAt;
+
+    // Getter
+    public UUID getUuid() {
+        return uuid;
+    }
+    public User getUser() {
+        return user;
+    }
+    public Catalog getCatalog() {
+        return catalog;
+    }
+    public String getCatalogName() {
+        return catalogName;
+    }
+    public String getCatalogDescription() {
+        return catalogDescription;
+    }
+    public Long getCatalogPriceMinor() {
+        return catalogPriceMinor;
+    }
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+    public String getCurrency() {
+        return currency;
+    }
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+    public LocalDate getDateline() {
+        return dateline;
+    }
+    public Boolean getIsPaid() {
+        return isPaid;
+    }
+    public Boolean getIsOverdue() {
+        return isOverdue;
+    }
+    public Long getVersion() {
+        return version;
+    }
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+    public Timestamp getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,49 @@
+package com.minibill.transactions.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+// 已刪除交易的紀錄，供增量同步告知客戶端移除；超過保留期限由 TransactionSyncService 清除
+@Entity
+@Table(name = "transaction_tombstone", indexes = {
+    @Index(name = "idx_tombstone_user_deleted", columnList = "user_uuid, deleted_at"),
+    @Index(name = "idx_tombstone_deleted", columnList = "deleted_at")
+})
+public class TransactionTombstone {
+
+    @Id
+    @Column(updatable = false, nullable = false)
+    private UUID uuid;
+
+    @Column(name = "user_uuid", nullable = false, updatable = false)
+    private UUID userUuid;
+
+    @Column(name = "deleted_at", nullable = false, updatable = false)
+    private Timestamp deletedAt;
+
+    public TransactionTombstone() {}
+
+    public TransactionTombstone(UUID uuid, UUID userUuid, Timestamp deletedAt) {
+        this.uuid = uuid;
+        this.userUuid = userUuid;
+        this.deletedAt = deletedAt;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public UUID getUserUuid() {
+        return userUuid;
+    }
+
+    public Timestamp getDeletedAt() {
+        return deletedAt;
+    }
+}
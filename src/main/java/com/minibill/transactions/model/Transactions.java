@@ -5,6 +5,7 @@ import javax.persistence.Table;
 
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -20,11 +21,27 @@ import java.sql.Timestamp;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    // Keyset 分頁用：(created_at, uuid) 與 (user_uuid, created_at, uuid)
+    @Index(name = "idx_transactions_created", columnList = "created_at, uuid"),
+    @Index(name = "idx_transactions_user_created", columnList = "user_uuid, created_at, uuid"),
+    // 帳款摘要重算繳費期限用：只掃該使用者的未付款項目
+    @Index(name = "idx_transactions_user_unpaid", columnList = "user_uuid, is_paid, dateline"),
+    // 逾期掃描用：未付款、尚未標記且已過繳費期限，等值條件在前讓已標記的列不在掃描範圍內
+    @Index(name = "idx_transactions_overdue_scan", columnList = "is_paid, is_overdue, dateline"),
+    // 條件查詢用：常見篩選欄位在前、排序欄位與 uuid 在後，可依索引順序直接取前 N 筆
+    @Index(name = "idx_transactions_catalog_created", columnList = "catalog_uuid, created_at, uuid"),
+    @Index(name = "idx_transactions_paid_created", columnList = "is_paid, created_at, uuid"),
+    @Index(name = "idx_transactions_amount", columnList = "amount_minor, uuid"),
+    @Index(name = "idx_transactions_dateline", columnList = "dateline, uuid"),
+    // 增量同步與 ETag 用：依 updated_at 範圍掃描
+    @Index(name = "idx_transactions_user_updated", columnList = "user_uuid, updated_at"),
+    @Index(name = "idx_transactions_updated", columnList = "updated_at")
+})
 public class Transactions {
     @Id
     @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GenericGenerator(name = "UUID", strategy = "com.minibill.common.AssignableUUIDGenerator")
     @Column(updatable = false, nullable = false)
     private UUID uuid;
 
@@ -36,7 +53,23 @@ public class Transactions {
     @JoinColumn(name = "catalog_uuid", nullable = false)
     private Catalog catalog;
 
-    private double amount;
+    // 建立（或改換商品）當下的商品名稱、描述與單價，之後商品異動不影響；讀取交易不需 JOIN catalog
+    // 既有資料由 SchemaMigrationConfig 回填
+    @Column(name = "catalog_name")
+    private String catalogName;
+
+    @Column(name = "catalog_description")
+    private String catalogDescription;
+
+    @Column(name = "catalog_price_minor", columnDefinition = "NUMBER(19,0)")
+    private Long catalogPriceMinor;
+
+    // 金額以最小貨幣單位儲存，幣別沿用商品幣別（見 com.minibill.common.Money）
+    @Column(name = "amount_minor", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private long amountMinor;
+
+    @Column(name = "currency", length = 3, columnDefinition = "VARCHAR2(3) DEFAULT 'TWD' NOT NULL")
+    private String currency;
 
     @Column(name = "created_at", updatable = false)
     @CreationTimestamp
@@ -47,6 +80,21 @@ public class Transactions {
     @Column(name = "is_paid")
     private Boolean isPaid;
 
+    // 由逾期掃描排程標記，付款後保留作為逾期紀錄；舊資料的 NULL 由啟動時的移轉補 0
+    @Column(name = "is_overdue", columnDefinition = "NUMBER(1,0) DEFAULT 0 NOT NULL")
+    private Boolean isOverdue;
+
+    // 樂觀鎖版本號，同時作為 ETag；舊資料由預設值補 0
+    @Version
+    @Column(name = "version", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private Long version;
+
+    // 最後異動時間（增量同步的 watermark）；集合式 UPDATE 需自行一併更新
+    // 既有資料在補欄位時以預設值填入，視為剛異動過
+    @Column(name = "updated_at", columnDefinition = "TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL")
+    @UpdateTimestamp
+    private Timestamp updatedAt;
+
     @Transient
     private static int defaultDatelineDays = 7;
 
@@ -56,6 +104,9 @@ public class Transactions {
         if (dateline == null) {
             this.dateline = LocalDate.now().plusDays(defaultDatelineDays);
         }
+        if (isOverdue == null) {
+            this.isOverdue = false;
+        }
     }
 
     // Getter / Setter
@@ -66,14 +117,30 @@ public class Transactions {
     public UUID getUuid() {
         return uuid;
     }
+    // 僅供預先指定 UUID 的寫入路徑使用（批次匯入、journal 重播）
+    public void setUuid(UUID uuid) {
+        this.uuid = uuid;
+    }
     public User getUser() {
         return user;
     }
     public Catalog getCatalog() {
         return catalog;
     }
-    public double getAmount() {
-        return amount;
+    public String getCatalogName() {
+        return catalogName;
+    }
+    public String getCatalogDescription() {
+        return catalogDescription;
+    }
+    public Long getCatalogPriceMinor() {
+        return catalogPriceMinor;
+    }
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+    public String getCurrency() {
+        return currency;
     }
     public LocalDate getDateline() {
         return dateline;
@@ -84,14 +151,32 @@ public class Transactions {
     public Boolean getIsPaid() {
         return isPaid;
     }
+    public Boolean getIsOverdue() {
+        return isOverdue;
+    }
+    public Long getVersion() {
+        return version;
+    }
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
     public void setUser(User user) {
         this.user = user;
     }
     public void setCatalog(Catalog catalog) {
         this.catalog = catalog;
     }
-    public void setAmount(double amount) {
-        this.amount = amount;
+    // 記下商品當下的名稱、描述與單價
+    public void snapshotCatalog(Catalog catalog) {
+        this.catalogName = catalog.getName();
+        this.catalogDescription = catalog.getDescription();
+        this.catalogPriceMinor = catalog.getPriceMinor();
+    }
+    public void setAmountMinor(long amountMinor) {
+        this.amountMinor = amountMinor;
+    }
+    public void setCurrency(String currency) {
+        this.currency = currency;
     }
     public void setDateline(LocalDate dateline) {
         this.dateline = dateline;
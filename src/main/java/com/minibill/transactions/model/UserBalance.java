@@ -0,0 +1,127 @@
+package com.minibill.transactions.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+// 每位使用者每個幣別的帳款摘要，由 TransactionsService 寫入時同步增量維護
+// 金額為該幣別的最小貨幣單位（見 com.minibill.common.Money），不同幣別不會加在一起
+@Entity
+@Table(name = "user_balance")
+@IdClass(UserBalance.Key.class)
+public class UserBalance {
+    @Id
+    @Column(name = "user_uuid", updatable = false, nullable = false)
+    private UUID userUuid;
+
+    @Id
+    @Column(name = "currency", length = 3, updatable = false, columnDefinition = "VARCHAR2(3) DEFAULT 'TWD' NOT NULL")
+    private String currency;
+
+    @Column(name = "total_billed_minor", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private long totalBilledMinor;
+
+    @Column(name = "total_unpaid_minor", columnDefinition = "NUMBER(19,0) DEFAULT 0 NOT NULL")
+    private long totalUnpaidMinor;
+
+    @Column(name = "unpaid_count", nullable = false)
+    private long unpaidCount;
+
+    @Column(name = "overdue_count", nullable = false)
+    private long overdueCount;
+
+    // 未付款項目中最早的繳費期限
+    @Column(name = "next_dateline")
+    private LocalDate nextDateline;
+
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    private Timestamp updatedAt;
+
+    public UserBalance() {}
+
+    // Getter / Setter
+    public UUID getUserUuid() {
+        return userUuid;
+    }
+    public String getCurrency() {
+        return currency;
+    }
+    public long getTotalBilledMinor() {
+        return totalBilledMinor;
+    }
+    public long getTotalUnpaidMinor() {
+        return totalUnpaidMinor;
+    }
+    public long getUnpaidCount() {
+        return unpaidCount;
+    }
+    public long getOverdueCount() {
+        return overdueCount;
+    }
+    public LocalDate getNextDateline() {
+        return nextDateline;
+    }
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+    public void setTotalBilledMinor(long totalBilledMinor) {
+        this.totalBilledMinor = totalBilledMinor;
+    }
+    public void setTotalUnpaidMinor(long totalUnpaidMinor) {
+        this.totalUnpaidMinor = totalUnpaidMinor;
+    }
+    public void setUnpaidCount(long unpaidCount) {
+        this.unpaidCount = unpaidCount;
+    }
+    public void setOverdueCount(long overdueCount) {
+        this.overdueCount = overdueCount;
+    }
+    public void setNextDateline(LocalDate nextDateline) {
+        this.nextDateline = nextDateline;
+    }
+
+    // 複合主鍵 (user_uuid, currency)
+    public static class Key implements Serializable {
+        private UUID userUuid;
+        private String currency;
+
+        public Key() {}
+
+        public Key(UUID userUuid, String currency) {
+            this.userUuid = userUuid;
+            this.currency = currency;
+        }
+
+        public UUID getUserUuid() {
+            return userUuid;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(userUuid, key.userUuid) && Objects.equals(currency, key.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userUuid, currency);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.minibill.transactions.repository;
+
+import com.minibill.transactions.model.ScheduledJobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ScheduledJobLockRepository extends JpaRepository<ScheduledJobLock, String> {
+
+    // 鎖定列不存在時建立；獨立提交，不讓其他節點的 INSERT 等到整個工作結束
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(scheduled_job_lock (name)) */ INTO scheduled_job_lock (name) " +
+        "VALUES (:name)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    // 需在呼叫端的交易內執行，鎖到該交易結束；其他節點持有中時不等待，回傳 null
+    @Query(value = "SELECT name FROM scheduled_job_lock WHERE name = :name FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    String tryLock(@Param("name") String name);
+}
@@ -0,0 +1,99 @@
+package com.minibill.transactions.repository;
+
+import com.minibill.transactions.dto.TransactionDTO;
+import com.minibill.transactions.model.TransactionArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+// 封存交易的查詢與搬移；查詢與 TransactionsRepository 對應，回傳相同的 TransactionDTO
+public interface TransactionArchiveRepository extends JpaRepository<TransactionArchive, UUID> {
+
+    String DTO_SELECT = "SELECT new com.minibill.transactions.dto.TransactionDTO(" +
+        "t.uuid, u.uuid, u.name, u.account, t.catalog.uuid, t.catalogName, t.catalogDescription, t.catalogPriceMinor, " +
+        "t.amountMinor, t.currency, t.createdAt, t.dateline, t.isPaid, t.isOverdue, t.version, t.updatedAt) " +
+        "FROM TransactionArchive t JOIN t.user u ";
+
+    // 封存的交易都已付款；呼叫端需控制在 1000 筆內
+    @Query("SELECT t.uuid FROM TransactionArchive t WHERE t.uuid IN :uuids")
+    List<UUID> findExistingUuids(@Param("uuids") Collection<UUID> uuids);
+
+    // 封存資料實際涵蓋到的最晚建立時間（走 idx_tx_archive_created），沒有封存資料時為 null
+    @Query("SELECT MAX(t.createdAt) FROM TransactionArchive t")
+    Timestamp findMaxCreatedAt();
+
+    @Query(DTO_SELECT + "WHERE t.uuid = :uuid")
+    Optional<TransactionDTO> findDtoById(@Param("uuid") UUID uuid);
+
+    @Query(DTO_SELECT + "ORDER BY t.createdAt DESC, t.uuid DESC")
+    List<TransactionDTO> findFirstPage(Pageable pageable);
+
+    @Query(DTO_SELECT +
+        "WHERE t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.uuid < :uuid) " +
+        "ORDER BY t.createdAt DESC, t.uuid DESC")
+    List<TransactionDTO> findPageAfter(@Param("createdAt") Timestamp createdAt,
+                                       @Param("uuid") UUID uuid,
+                                       Pageable pageable);
+
+    @Query(DTO_SELECT + "WHERE t.user.uuid = :userUuid " +
+        "ORDER BY t.createdAt DESC, t.uuid DESC")
+    List<TransactionDTO> findFirstPageByUserUuid(@Param("userUuid") UUID userUuid, Pageable pageable);
+
+    @Query(DTO_SELECT + "WHERE t.user.uuid = :userUuid " +
+        "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.uuid < :uuid)) " +
+        "ORDER BY t.createdAt DESC, t.uuid DESC")
+    List<TransactionDTO> findPageAfterByUserUuid(@Param("userUuid") UUID userUuid,
+                                                 @Param("createdAt") Timestamp createdAt,
+                                                 @Param("uuid") UUID uuid,
+                                                 Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(DTO_SELECT +
+        "WHERE (:from IS NULL OR t.createdAt >= :from) " +
+        "AND (:to IS NULL OR t.createdAt < :to) " +
+        "AND (:isPaid IS NULL OR t.isPaid = :isPaid) " +
+        "ORDER BY t.createdAt, t.uuid")
+    Stream<TransactionDTO> streamForExport(@Param("from") Timestamp from,
+                                           @Param("to") Timestamp to,
+                                           @Param("isPaid") Boolean isPaid);
+
+    // === 搬移：三個敘述需在同一個交易內執行（見 TransactionArchiveService.archiveBatch） ===
+    // archivedAt 作為本批的標記，後兩個敘述只處理本批複製的資料
+    // 1. 複製最多 batchSize 筆超過期限的已付款交易
+    @Modifying
+    @Query(value = "INSERT INTO transactions_archive " +
+        "(uuid, user_uuid, catalog_uuid, catalog_name, catalog_description, catalog_price_minor, " +
+        " amount_minor, currency, created_at, dateline, is_paid, is_overdue, version, updated_at, archived_at) " +
+        "SELECT uuid, user_uuid, catalog_uuid, catalog_name, catalog_description, catalog_price_minor, " +
+        "       amount_minor, currency, created_at, dateline, is_paid, is_overdue, version, updated_at, :archivedAt " +
+        "FROM transactions WHERE is_paid = 1 AND created_at < :cutoff AND ROWNUM <= :batchSize", nativeQuery = true)
+    int copyBatch(@Param("cutoff") Timestamp cutoff,
+                  @Param("batchSize") int batchSize,
+                  @Param("archivedAt") Timestamp archivedAt);
+
+    // 2. 刪除本批已複製且期間未被修改（版本相同）的交易
+    @Modifying
+    @Query(value = "DELETE FROM transactions WHERE (uuid, version) IN " +
+        "(SELECT uuid, version FROM transactions_archive WHERE archived_at = :archivedAt)", nativeQuery = true)
+    int deleteArchivedFromHot(@Param("archivedAt") Timestamp archivedAt);
+
+    // 3. 期間被修改而留在 transactions 的，撤回其封存副本
+    @Modifying
+    @Query(value = "DELETE FROM transactions_archive a WHERE a.archived_at = :archivedAt " +
+        "AND EXISTS (SELECT 1 FROM transactions t WHERE t.uuid = a.uuid)", nativeQuery = true)
+    int deleteStillHot(@Param("archivedAt") Timestamp archivedAt);
+}
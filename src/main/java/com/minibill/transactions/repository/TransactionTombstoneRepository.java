@@ -0,0 +1,31 @@
+package com.minibill.transactions.repository;
+
+import com.minibill.transactions.model.TransactionTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.transaction.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+public interface TransactionTombstoneRepository extends JpaRepository<TransactionTombstone, UUID> {
+
+    @Query("SELECT t.uuid FROM TransactionTombstone t WHERE t.userUuid = :userUuid AND t.deletedAt > :since")
+    List<UUID> findDeletedSince(@Param("userUuid") UUID userUuid, @Param("since") Timestamp since);
+
+    @Query("SELECT MAX(t.deletedAt) FROM TransactionTombstone t WHERE t.userUuid = :userUuid")
+    Timestamp findLastDeletedByUserUuid(@Param("userUuid") UUID userUuid);
+
+    @Query("SELECT MAX(t.deletedAt) FROM TransactionTombstone t")
+    Timestamp findLastDeleted();
+
+    // 清除超過保留期限的紀錄
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TransactionTombstone t WHERE t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") Timestamp before);
+}
@@ -1,15 +1,163 @@
 package com.minibill.transactions.repository;
 
+import com.minibill.transactions.dto.TransactionDTO;
 import com.minibill.transactions.model.Transactions;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import javax.transaction.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 import java.util.List;
-public interface TransactionsRepository extends JpaRepository<Transactions, UUID> {
-   
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface TransactionsRepository extends JpaRepository<Transactions, UUID>, TransactionsSearchRepository {
+
     @Query("SELECT t FROM Transactions t WHERE t.user.uuid = :userUuid")
     List<Transactions> findByUserUuid(@Param("userUuid") UUID userUuid);
 
+    // === 付款狀態投影：只讀出更新付款狀態所需欄位，不載入關聯 ===
+    interface PaymentState {
+        UUID getUserUuid();
+        UUID getCatalogUuid();
+        Timestamp getCreatedAt();
+        String getCurrency();
+        long getAmountMinor();
+        Boolean getIsPaid();
+        Long getVersion();
+    }
+
+    @Query("SELECT t.user.uuid AS userUuid, t.catalog.uuid AS catalogUuid, t.createdAt AS createdAt, " +
+        "t.currency AS currency, t.amountMinor AS amountMinor, t.isPaid AS isPaid, t.version AS version " +
+        "FROM Transactions t WHERE t.uuid = :uuid")
+    Optional<PaymentState> findPaymentState(@Param("uuid") UUID uuid);
+
+    // 以版本號作條件的單一敘述更新，回傳 0 代表已被他人修改
+    // updatedAt 由呼叫端傳入，與 @UpdateTimestamp 同樣使用應用程式時鐘
+    @Modifying
+    @Query("UPDATE Transactions t SET t.isPaid = :isPaid, t.version = t.version + 1, t.updatedAt = :now " +
+        "WHERE t.uuid = :uuid AND t.version = :version")
+    int updatePaidIfVersion(@Param("uuid") UUID uuid,
+                            @Param("isPaid") Boolean isPaid,
+                            @Param("version") Long version,
+                            @Param("now") Timestamp now);
+
+    // === 對帳：候選交易投影與集合式標記已付款 ===
+    interface PaymentCandidate {
+        UUID getUuid();
+        UUID getUserUuid();
+        UUID getCatalogUuid();
+        Timestamp getCreatedAt();
+        LocalDate getDateline();
+        String getCurrency();
+        long getAmountMinor();
+        Boolean getIsPaid();
+    }
+
+    String PAYMENT_CANDIDATE_SELECT = "SELECT t.uuid AS uuid, t.user.uuid AS userUuid, t.catalog.uuid AS catalogUuid, " +
+        "t.createdAt AS createdAt, t.dateline AS dateline, t.currency AS currency, " +
+        "t.amountMinor AS amountMinor, t.isPaid AS isPaid FROM Transactions t ";
+
+    // 呼叫端需控制在 1000 筆內
+    @Query(PAYMENT_CANDIDATE_SELECT + "WHERE t.uuid IN :uuids")
+    List<PaymentCandidate> findPaymentCandidatesByIds(@Param("uuids") Collection<UUID> uuids);
+
+    // 走 user_uuid, is_paid, dateline 索引；同條件多筆時先比對到較早建立的
+    @Query(PAYMENT_CANDIDATE_SELECT + "WHERE t.user.uuid IN :userUuids AND t.isPaid = false " +
+        "AND t.dateline IN :datelines ORDER BY t.createdAt, t.uuid")
+    List<PaymentCandidate> findUnpaidByUsersAndDatelines(@Param("userUuids") Collection<UUID> userUuids,
+                                                         @Param("datelines") Collection<LocalDate> datelines);
+
+    // 只更新仍未付款的列，回傳筆數少於傳入筆數代表有交易已被他人修改
+    @Modifying
+    @Query("UPDATE Transactions t SET t.isPaid = true, t.version = t.version + 1, t.updatedAt = :now " +
+        "WHERE t.uuid IN :uuids AND t.isPaid = false")
+    int markPaid(@Param("uuids") Collection<UUID> uuids, @Param("now") Timestamp now);
+
+    // 找出已存在的 UUID（批次寫入冪等用，呼叫端需控制在 1000 筆內）
+    @Query("SELECT t.uuid FROM Transactions t WHERE t.uuid IN :uuids")
+    Set<UUID> findExistingUuids(@Param("uuids") Collection<UUID> uuids);
+
+    // === DTO 投影：商品欄位取自交易上的快照，只 JOIN 使用者，避免逐筆載入關聯 ===
+    String DTO_SELECT = "SELECT new com.minibill.transactions.dto.TransactionDTO(" +
+        "t.uuid, u.uuid, u.name, u.account, t.catalog.uuid, t.catalogName, t.catalogDescription, t.catalogPriceMinor, " +
+        "t.amountMinor, t.currency, t.createdAt, t.dateline, t.isPaid, t.isOverdue, t.version, t.updatedAt) " +
+        "FROM Transactions t JOIN t.user u ";
+
+    @Query(DTO_SELECT + "WHERE t.uuid = :uuid")
+    Optional<TransactionDTO> findDtoById(@Param("uuid") UUID uuid);
+
+    // 呼叫端需控制在 1000 筆內
+    @Query(DTO_SELECT + "WHERE t.uuid IN :uuids")
+    List<TransactionDTO> findDtosByIds(@Param("uuids") Collection<UUID> uuids);
+
+    // === 增量同步：只取 watermark 之後異動的列（走 user_uuid, updated_at 索引） ===
+    @Query(DTO_SELECT + "WHERE t.user.uuid = :userUuid AND t.updatedAt > :since " +
+        "ORDER BY t.updatedAt, t.uuid")
+    List<TransactionDTO> findChangedByUserUuid(@Param("userUuid") UUID userUuid, @Param("since") Timestamp since);
+
+    // 清單的 Last-Modified / ETag 來源，只讀索引
+    @Query("SELECT MAX(t.updatedAt) FROM Transactions t WHERE t.user.uuid = :userUuid")
+    Timestamp findLastUpdatedByUserUuid(@Param("userUuid") UUID userUuid);
+
+    @Query("SELECT MAX(t.updatedAt) FROM Transactions t")
+    Timestamp findLastUpdated();
+
+    // === Keyset 分頁：依 (createdAt, uuid) 由新到舊，筆數由 Pageable 限制 ===
+    @Query(DTO_SELECT + "ORDER BY t.createdAt DESC, t.uuid DESC")
+    List<TransactionDTO> findFirstPage(Pageable pageable);
+
+    @Query(DTO_SELECT +
+        "WHERE t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.uuid < :uuid) " +
+        "ORDER BY t.createdAt DESC, t.uuid DESC")
+    List<TransactionDTO> findPageAfter(@Param("createdAt") Timestamp createdAt,
+                                       @Param("uuid") UUID uuid,
+                                       Pageable pageable);
+
+    @Query(DTO_SELECT + "WHERE t.user.uuid = :userUuid " +
+        "ORDER BY t.createdAt DESC, t.uuid DESC")
+    List<TransactionDTO> findFirstPageByUserUuid(@Param("userUuid") UUID userUuid, Pageable pageable);
+
+    @Query(DTO_SELECT + "WHERE t.user.uuid = :userUuid " +
+        "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.uuid < :uuid)) " +
+        "ORDER BY t.createdAt DESC, t.uuid DESC")
+    List<TransactionDTO> findPageAfterByUserUuid(@Param("userUuid") UUID userUuid,
+                                                 @Param("createdAt") Timestamp createdAt,
+                                                 @Param("uuid") UUID uuid,
+                                                 Pageable pageable);
+
+    // === 匯出：forward-only 串流讀取，fetch size 控制每次往返的筆數（需在交易內消費） ===
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(DTO_SELECT +
+        "WHERE (:from IS NULL OR t.createdAt >= :from) " +
+        "AND (:to IS NULL OR t.createdAt < :to) " +
+        "AND (:isPaid IS NULL OR t.isPaid = :isPaid) " +
+        "ORDER BY t.createdAt, t.uuid")
+    Stream<TransactionDTO> streamForExport(@Param("from") Timestamp from,
+                                           @Param("to") Timestamp to,
+                                           @Param("isPaid") Boolean isPaid);
+
+    // === 逾期掃描：每次最多標記 chunkSize 筆並各自提交，避免長時間持有鎖 ===
+    // 條件對應 idx_transactions_overdue_scan 的範圍掃描，已標記的列不會在之後的批次重複讀到
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE transactions SET is_overdue = 1, version = version + 1, updated_at = :now " +
+        "WHERE is_paid = 0 AND is_overdue = 0 AND dateline < :today " +
+        "AND ROWNUM <= :chunkSize", nativeQuery = true)
+    int markOverdueChunk(@Param("today") LocalDate today,
+                         @Param("chunkSize") int chunkSize,
+                         @Param("now") Timestamp now);
+
 }
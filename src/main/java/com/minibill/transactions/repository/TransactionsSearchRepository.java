@@ -0,0 +1,17 @@
+package com.minibill.transactions.repository;
+
+import java.util.List;
+
+import com.minibill.transactions.dto.TransactionDTO;
+import com.minibill.transactions.dto.TransactionSearchCursor;
+import com.minibill.transactions.dto.TransactionSearchFilter;
+
+// 條件組合查詢（Criteria API），由 TransactionsRepository 一併提供
+public interface TransactionsSearchRepository {
+
+    // after 為 null 時從第一筆開始，最多回傳 limit 筆
+    List<TransactionDTO> search(TransactionSearchFilter filter, TransactionSearchCursor after, int limit);
+
+    // 同樣的條件查詢封存資料表（transactions_archive）
+    List<TransactionDTO> searchArchive(TransactionSearchFilter filter, TransactionSearchCursor after, int limit);
+}
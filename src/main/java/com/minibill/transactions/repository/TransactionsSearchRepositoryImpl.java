@@ -0,0 +1,128 @@
+package com.minibill.transactions.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.minibill.transactions.dto.TransactionDTO;
+import com.minibill.transactions.dto.TransactionSearchCursor;
+import com.minibill.transactions.dto.TransactionSearchFilter;
+import com.minibill.transactions.model.TransactionArchive;
+import com.minibill.transactions.model.Transactions;
+
+// === 條件組合查詢 ===
+// 只把有值的條件組成 WHERE，直接投影成 TransactionDTO，並以 (排序欄位, uuid) 做 keyset 分頁。
+// 篩選欄位都以 transactions 本身的欄位比對（t.user.uuid 即 user_uuid 外鍵），
+// 搭配 Transactions 上 (篩選欄位, 排序欄位, uuid) 的複合索引，不需回表排序。
+public class TransactionsSearchRepositoryImpl implements TransactionsSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TransactionDTO> search(TransactionSearchFilter filter, TransactionSearchCursor after, int limit) {
+        return search(Transactions.class, filter, after, limit);
+    }
+
+    @Override
+    public List<TransactionDTO> searchArchive(TransactionSearchFilter filter, TransactionSearchCursor after, int limit) {
+        return search(TransactionArchive.class, filter, after, limit);
+    }
+
+    // Transactions 與 TransactionArchive 的屬性名稱相同，共用同一段查詢
+    private List<TransactionDTO> search(Class<?> entity, TransactionSearchFilter filter,
+                                        TransactionSearchCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionDTO> query = cb.createQuery(TransactionDTO.class);
+        Root<?> t = query.from(entity);
+        Join<?, ?> u = t.join("user");
+
+        // 參數順序需與 TransactionDTO 建構子一致（同 TransactionsRepository.DTO_SELECT）
+        query.select(cb.construct(TransactionDTO.class,
+                t.get("uuid"), u.get("uuid"), u.get("name"), u.get("account"),
+                t.get("catalog").get("uuid"), t.get("catalogName"), t.get("catalogDescription"), t.get("catalogPriceMinor"),
+                t.get("amountMinor"), t.get("currency"), t.get("createdAt"), t.get("dateline"),
+                t.get("isPaid"), t.get("isOverdue"), t.get("version"), t.get("updatedAt")));
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.getFrom() != null) {
+            where.add(cb.greaterThanOrEqualTo(t.get("createdAt"), filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            where.add(cb.lessThan(t.get("createdAt"), filter.getTo()));
+        }
+        if (filter.getIsPaid() != null) {
+            where.add(cb.equal(t.get("isPaid"), filter.getIsPaid()));
+        }
+        if (Boolean.TRUE.equals(filter.getIsOverdue())) {
+            where.add(cb.isTrue(t.get("isOverdue")));
+        } else if (filter.getIsOverdue() != null) {
+            where.add(cb.isFalse(t.get("isOverdue")));
+        }
+        if (filter.getCatalogId() != null) {
+            where.add(cb.equal(t.get("catalog").get("uuid"), filter.getCatalogId()));
+        }
+        if (filter.getUserId() != null) {
+            where.add(cb.equal(t.get("user").get("uuid"), filter.getUserId()));
+        }
+        if (filter.getCurrency() != null) {
+            where.add(cb.equal(t.get("currency"), filter.getCurrency()));
+        }
+        if (filter.getMinAmountMinor() != null) {
+            where.add(cb.greaterThanOrEqualTo(t.get("amountMinor"), filter.getMinAmountMinor()));
+        }
+        if (filter.getMaxAmountMinor() != null) {
+            where.add(cb.lessThanOrEqualTo(t.get("amountMinor"), filter.getMaxAmountMinor()));
+        }
+
+        Path<Comparable<Object>> key = t.get(sortAttribute(filter.getSort()));
+        Path<UUID> uuid = t.get("uuid");
+        if (after != null) {
+            where.add(afterCursor(cb, key, uuid, after, filter.isDescending()));
+        }
+        query.where(where.toArray(new Predicate[0]));
+
+        if (filter.isDescending()) {
+            query.orderBy(cb.desc(key), cb.desc(uuid));
+        } else {
+            query.orderBy(cb.asc(key), cb.asc(uuid));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static String sortAttribute(TransactionSearchFilter.Sort sort) {
+        switch (sort) {
+            case DATELINE:
+                return "dateline";
+            case AMOUNT:
+                return "amountMinor";
+            default:
+                return "createdAt";
+        }
+    }
+
+    // 遞減：key < v OR (key = v AND uuid < u)；遞增則反之
+    @SuppressWarnings("unchecked")
+    private static Predicate afterCursor(CriteriaBuilder cb, Path<Comparable<Object>> key, Path<UUID> uuid,
+                                         TransactionSearchCursor after, boolean descending) {
+        Comparable<Object> value = (Comparable<Object>) after.getValue();
+        if (descending) {
+            return cb.or(cb.lessThan(key, value),
+                    cb.and(cb.equal(key, value), cb.lessThan(uuid, after.getUuid())));
+        }
+        return cb.or(cb.greaterThan(key, value),
+                cb.and(cb.equal(key, value), cb.greaterThan(uuid, after.getUuid())));
+    }
+}
@@ -0,0 +1,100 @@
+package com.minibill.transactions.repository;
+
+import com.minibill.transactions.model.UserBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface UserBalanceRepository extends JpaRepository<UserBalance, UserBalance.Key> {
+
+    // 使用者的各幣別摘要（走主鍵前綴）
+    List<UserBalance> findByUserUuidOrderByCurrency(UUID userUuid);
+
+    // 金額與筆數以差量更新，不需讀出整筆
+    @Modifying
+    @Query("UPDATE UserBalance b SET b.totalBilledMinor = b.totalBilledMinor + :billed, " +
+        "b.totalUnpaidMinor = b.totalUnpaidMinor + :unpaid, b.unpaidCount = b.unpaidCount + :unpaidCount, " +
+        "b.updatedAt = CURRENT_TIMESTAMP " +
+        "WHERE b.userUuid = :userUuid AND b.currency = :currency")
+    int applyDelta(@Param("userUuid") UUID userUuid,
+                   @Param("currency") String currency,
+                   @Param("billed") long billed,
+                   @Param("unpaid") long unpaid,
+                   @Param("unpaidCount") long unpaidCount);
+
+    // 摘要列不存在時建立全 0 的列；並行請求已建立（含尚未提交）時等待對方並略過，不拋出主鍵衝突
+    @Modifying
+    @Query(value = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(user_balance (user_uuid, currency)) */ INTO user_balance " +
+        "(user_uuid, currency, total_billed_minor, total_unpaid_minor, unpaid_count, overdue_count, updated_at) " +
+        "VALUES (:userUuid, :currency, 0, 0, 0, 0, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int insertIfAbsent(@Param("userUuid") UUID userUuid, @Param("currency") String currency);
+
+    // 繳費期限相關欄位只看該使用者該幣別的未付款項目（走 user_uuid, is_paid, dateline 索引）
+    @Modifying
+    @Query("UPDATE UserBalance b SET " +
+        "b.nextDateline = (SELECT MIN(t.dateline) FROM Transactions t " +
+        "    WHERE t.user.uuid = :userUuid AND t.currency = :currency AND t.isPaid = false), " +
+        "b.overdueCount = (SELECT COUNT(t) FROM Transactions t " +
+        "    WHERE t.user.uuid = :userUuid AND t.currency = :currency AND t.isPaid = false AND t.dateline < :today) " +
+        "WHERE b.userUuid = :userUuid AND b.currency = :currency")
+    int refreshSchedule(@Param("userUuid") UUID userUuid,
+                        @Param("currency") String currency,
+                        @Param("today") LocalDate today);
+
+    // 批次付款後一次重算多位使用者的未付款欄位（已開立金額不變；封存的交易都已付款，不需查封存表）
+    @Modifying
+    @Query("UPDATE UserBalance b SET " +
+        "b.totalUnpaidMinor = (SELECT COALESCE(SUM(t.amountMinor), 0) FROM Transactions t " +
+        "    WHERE t.user.uuid = b.userUuid AND t.currency = b.currency AND t.isPaid = false), " +
+        "b.unpaidCount = (SELECT COUNT(t) FROM Transactions t " +
+        "    WHERE t.user.uuid = b.userUuid AND t.currency = b.currency AND t.isPaid = false), " +
+        "b.nextDateline = (SELECT MIN(t.dateline) FROM Transactions t " +
+        "    WHERE t.user.uuid = b.userUuid AND t.currency = b.currency AND t.isPaid = false), " +
+        "b.overdueCount = (SELECT COUNT(t) FROM Transactions t " +
+        "    WHERE t.user.uuid = b.userUuid AND t.currency = b.currency AND t.isPaid = false AND t.dateline < :today), " +
+        "b.updatedAt = CURRENT_TIMESTAMP " +
+        "WHERE b.userUuid IN :userUuids")
+    int refreshUnpaid(@Param("userUuids") Collection<UUID> userUuids, @Param("today") LocalDate today);
+
+    // 逾期掃描後更新：只處理最早繳費期限已過的摘要列
+    @Modifying
+    @Query("UPDATE UserBalance b SET " +
+        "b.overdueCount = (SELECT COUNT(t) FROM Transactions t " +
+        "    WHERE t.user.uuid = b.userUuid AND t.currency = b.currency AND t.isPaid = false AND t.dateline < :today), " +
+        "b.updatedAt = CURRENT_TIMESTAMP " +
+        "WHERE b.unpaidCount > 0 AND b.nextDateline < :today")
+    int refreshOverdueCounts(@Param("today") LocalDate today);
+
+    // === 全量重建 ===
+    // 先鎖住整張表：同時建立交易的增量更新會等重建提交後才套用，不會與重建的 INSERT 撞主鍵
+    @Modifying
+    @Query(value = "LOCK TABLE user_balance IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM user_balance", nativeQuery = true)
+    int deleteAllRows();
+
+    // 依使用者與幣別分組；封存的交易都已付款，只計入已開立金額
+    @Modifying
+    @Query(value = "INSERT INTO user_balance " +
+        "(user_uuid, currency, total_billed_minor, total_unpaid_minor, unpaid_count, overdue_count, next_dateline, updated_at) " +
+        "SELECT user_uuid, currency, " +
+        "       SUM(amount_minor), " +
+        "       SUM(CASE WHEN is_paid = 0 THEN amount_minor ELSE 0 END), " +
+        "       SUM(CASE WHEN is_paid = 0 THEN 1 ELSE 0 END), " +
+        "       SUM(CASE WHEN is_paid = 0 AND dateline < :today THEN 1 ELSE 0 END), " +
+        "       MIN(CASE WHEN is_paid = 0 THEN dateline END), " +
+        "       CURRENT_TIMESTAMP " +
+        "FROM (SELECT user_uuid, currency, amount_minor, is_paid, dateline FROM transactions " +
+        "      UNION ALL " +
+        "      SELECT user_uuid, currency, amount_minor, is_paid, dateline FROM transactions_archive) " +
+        "GROUP BY user_uuid, currency", nativeQuery = true)
+    int insertAllFromTransactions(@Param("today") LocalDate today);
+}
@@ -0,0 +1,285 @@
+package com.minibill.transactions.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// === Write-ahead journal（memory-mapped，分段檔案） ===
+// 紀錄格式：[int 長度][int CRC32][內容]；長度 0 表示尚未寫入，-1 表示本段結束、接續下一段。
+// 位置以「段號 * 段大小 + 段內位移」表示，單調遞增。
+// append 只寫入 mapping，sync 才 fsync；awaitDurable 讓呼叫端等到自己的紀錄落盤（group commit）。
+// 讀取端只讀到已 fsync 的位置，處理完後 commit 寫入 checkpoint，並刪除已消化完的舊段。
+public class IngestJournal implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final int END_OF_SEGMENT = -1;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final FileChannel checkpointChannel;
+
+    // 寫入端，以 this 同步
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private volatile long writtenPosition;
+
+    private final Object durableLock = new Object();
+    private volatile long durablePosition;
+
+    // 讀取端，只由單一背景執行緒使用
+    private long readSegment;
+    private int readOffset;
+    private MappedByteBuffer readBuffer;
+    private volatile long committedSegment;
+    private volatile int committedOffset;
+
+    public IngestJournal(Path dir, int segmentBytes) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+        this.checkpointChannel = FileChannel.open(dir.resolve("checkpoint"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    // === 啟動時復原：由 checkpoint 開始重播，找出最後一段的寫入結尾 ===
+    private void recover() throws IOException {
+        List<Long> segments = listSegments();
+        long[] checkpoint = readCheckpoint();
+        if (checkpoint == null) {
+            // 沒有 checkpoint：從最早的段重播（寫入端以 UUID 去重，重播是冪等的）
+            checkpoint = new long[] { segments.isEmpty() ? 1 : segments.get(0), 0 };
+        }
+        for (Long segment : segments) {
+            if (segment < checkpoint[0]) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+
+        long last = segments.isEmpty() ? checkpoint[0] : Math.max(segments.get(segments.size() - 1), checkpoint[0]);
+        MappedByteBuffer buffer = map(last, FileChannel.MapMode.READ_WRITE);
+        int end = last == checkpoint[0] ? (int) checkpoint[1] : 0;
+        while (readRecord(buffer, end) != null) {
+            end += HEADER_BYTES + buffer.getInt(end);
+        }
+        if (end + 4 <= segmentBytes && buffer.getInt(end) == END_OF_SEGMENT) {
+            // 上次在換段途中停止
+            last++;
+            buffer = map(last, FileChannel.MapMode.READ_WRITE);
+            end = 0;
+        } else {
+            // 清掉尾端可能殘留的半筆紀錄
+            for (int i = end; i < segmentBytes; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        buffer.position(end);
+
+        writeSegment = last;
+        writeBuffer = buffer;
+        writtenPosition = position(last, end);
+        durablePosition = writtenPosition;
+
+        committedSegment = checkpoint[0];
+        committedOffset = (int) checkpoint[1];
+        rewind();
+    }
+
+    // === 寫入 ===
+    // 回傳寫入後的位置，交給 awaitDurable 等待落盤
+    public synchronized long append(byte[] payload) throws IOException {
+        int needed = HEADER_BYTES + payload.length;
+        if (needed + 4 > segmentBytes) {
+            throw new IOException("journal 紀錄過大：" + payload.length + " bytes");
+        }
+        if (writeBuffer.position() + needed + 4 > segmentBytes) {
+            roll();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int start = writeBuffer.position();
+        writeBuffer.putInt(start + 4, (int) crc.getValue());
+        writeBuffer.position(start + HEADER_BYTES);
+        writeBuffer.put(payload);
+        writeBuffer.putInt(start, payload.length); // 長度最後寫，讀到長度時內容已就緒
+        writtenPosition = position(writeSegment, writeBuffer.position());
+        return writtenPosition;
+    }
+
+    // 目前段寫滿：寫入結束標記並落盤，再開新段
+    private void roll() throws IOException {
+        writeBuffer.putInt(writeBuffer.position(), END_OF_SEGMENT);
+        writeBuffer.force();
+        writeSegment++;
+        writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+        writeBuffer.position(0);
+        writtenPosition = position(writeSegment, 0);
+    }
+
+    // === 落盤（由 fsync 執行緒呼叫，一次 force 涵蓋期間所有 append） ===
+    public void sync() {
+        MappedByteBuffer buffer;
+        long target;
+        synchronized (this) {
+            buffer = writeBuffer;
+            target = writtenPosition;
+        }
+        if (target <= durablePosition) {
+            return;
+        }
+        buffer.force();
+        synchronized (durableLock) {
+            if (target > durablePosition) {
+                durablePosition = target;
+            }
+            durableLock.notifyAll();
+        }
+    }
+
+    public boolean hasUnsyncedWrites() {
+        return writtenPosition > durablePosition;
+    }
+
+    public void awaitDurable(long position, long timeoutMs) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (durableLock) {
+            while (durablePosition < position) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IOException("journal fsync 逾時");
+                }
+                durableLock.wait(remaining);
+            }
+        }
+    }
+
+    // === 讀取（不推進 checkpoint） ===
+    public List<byte[]> read(int max) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        long durable = durablePosition;
+        while (records.size() < max && position(readSegment, readOffset) < durable) {
+            if (readBuffer.getInt(readOffset) == END_OF_SEGMENT) {
+                readSegment++;
+                readOffset = 0;
+                readBuffer = map(readSegment, FileChannel.MapMode.READ_ONLY);
+                continue;
+            }
+            byte[] payload = readRecord(readBuffer, readOffset);
+            if (payload == null) {
+                throw new IOException("journal 損毀：segment " + readSegment + " offset " + readOffset);
+            }
+            records.add(payload);
+            readOffset += HEADER_BYTES + payload.length;
+        }
+        return records;
+    }
+
+    // 已讀取的紀錄都寫入資料庫後呼叫
+    public void commit() throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(12);
+        checkpoint.putLong(readSegment);
+        checkpoint.putInt(readOffset);
+        checkpoint.flip();
+        checkpointChannel.write(checkpoint, 0);
+        checkpointChannel.force(false);
+
+        for (long segment = committedSegment; segment < readSegment; segment++) {
+            try {
+                Files.deleteIfExists(segmentPath(segment));
+            } catch (IOException e) {
+                // 檔案仍被 mapping 佔用（Windows），下次啟動時會清除
+            }
+        }
+        committedSegment = readSegment;
+        committedOffset = readOffset;
+    }
+
+    // 寫入資料庫失敗時回到上一個 checkpoint，稍後重試
+    public void rewind() throws IOException {
+        readSegment = committedSegment;
+        readOffset = committedOffset;
+        readBuffer = map(readSegment, FileChannel.MapMode.READ_ONLY);
+    }
+
+    // === 指標 ===
+    // 已落盤但尚未寫入資料庫的位元組數（跨段時包含段尾未使用空間，為近似值）
+    public long pendingBytes() {
+        return Math.max(0, durablePosition - position(committedSegment, committedOffset));
+    }
+
+    public long sizeOnDisk() {
+        return (writeSegment - committedSegment + 1) * (long) segmentBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        checkpointChannel.close();
+    }
+
+    // === 內部工具 ===
+    private long position(long segment, int offset) {
+        return segment * segmentBytes + offset;
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("journal-%012d.log", segment));
+    }
+
+    // 讀出一筆完整且 CRC 正確的紀錄，否則回傳 null
+    private byte[] readRecord(ByteBuffer buffer, int offset) {
+        if (offset + HEADER_BYTES > segmentBytes) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + HEADER_BYTES);
+        view.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(offset + 4) ? payload : null;
+    }
+
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // mapping 在 channel 關閉後仍然有效
+            return channel.map(mode, 0, segmentBytes);
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("journal-") && name.endsWith(".log"))
+                    .map(name -> Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private long[] readCheckpoint() throws IOException {
+        if (checkpointChannel.size() < 12) {
+            return null;
+        }
+        ByteBuffer checkpoint = ByteBuffer.allocate(12);
+        checkpointChannel.read(checkpoint, 0);
+        checkpoint.flip();
+        return new long[] { checkpoint.getLong(), checkpoint.getInt() };
+    }
+}
@@ -0,0 +1,74 @@
+package com.minibill.transactions.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.minibill.transactions.repository.TransactionsRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// === 逾期掃描排程 ===
+// 以集合式 UPDATE 分批標記已過繳費期限的未付款交易，每批獨立提交
+@Component
+public class OverdueSweepJob {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueSweepJob.class);
+
+    private final TransactionsRepository transactionsRepository;
+    private final UserBalanceService userBalanceService;
+
+    private final Counter markedCounter;
+    private final Counter chunkCounter;
+    private final Timer sweepTimer;
+    private final AtomicLong lastSweepMarked = new AtomicLong();
+
+    @Value("${minibill.overdue.chunk-size:5000}")
+    private int chunkSize;
+
+    public OverdueSweepJob(TransactionsRepository transactionsRepository,
+                           UserBalanceService userBalanceService,
+                           MeterRegistry meterRegistry) {
+        this.transactionsRepository = transactionsRepository;
+        this.userBalanceService = userBalanceService;
+        this.markedCounter = meterRegistry.counter("minibill.overdue.sweep.marked");
+        this.chunkCounter = meterRegistry.counter("minibill.overdue.sweep.chunks");
+        this.sweepTimer = meterRegistry.timer("minibill.overdue.sweep.duration");
+        meterRegistry.gauge("minibill.overdue.sweep.last.marked", lastSweepMarked);
+    }
+
+    @Scheduled(fixedDelayString = "${minibill.overdue.interval-ms:3600000}",
+               initialDelayString = "${minibill.overdue.initial-delay-ms:60000}")
+    public void sweep() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        long total = 0;
+        int updated;
+        do {
+            updated = transactionsRepository.markOverdueChunk(today, chunkSize, new Timestamp(System.currentTimeMillis()));
+            total += updated;
+            markedCounter.increment(updated);
+            chunkCounter.increment();
+            if (updated > 0) {
+                log.debug("逾期掃描進度：本批 {} 筆，累計 {} 筆", updated, total);
+            }
+        } while (updated == chunkSize);
+
+        if (total > 0) {
+            userBalanceService.refreshOverdueCounts();
+        }
+        lastSweepMarked.set(total);
+        long elapsed = System.nanoTime() - start;
+        sweepTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("逾期掃描完成：標記 {} 筆，耗時 {} ms", total, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+}
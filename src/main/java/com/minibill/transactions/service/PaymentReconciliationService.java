@@ -0,0 +1,220 @@
+package com.minibill.transactions.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.transaction.Transactional;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import com.minibill.common.Money;
+import com.minibill.report.model.RevenueDaily;
+import com.minibill.report.service.RevenueRollupService;
+import com.minibill.transactions.dto.PaymentRecord;
+import com.minibill.transactions.dto.ReconciliationResult;
+import com.minibill.transactions.dto.TransactionEvent;
+import com.minibill.transactions.repository.TransactionArchiveRepository;
+import com.minibill.transactions.repository.TransactionsRepository;
+import com.minibill.transactions.repository.TransactionsRepository.PaymentCandidate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// === 付款對帳 ===
+// 一次處理一批（不超過 TransactionsService.BULK_CHUNK_SIZE 筆）：候選交易以 IN 查詢一次取回並在記憶體比對，
+// 比對成功的以一個 UPDATE 標記已付款，帳款摘要與營收彙總每批各更新一次
+@Service
+public class PaymentReconciliationService {
+
+    private final TransactionsRepository transactionsRepository;
+    private final TransactionArchiveRepository transactionArchiveRepository;
+    private final UserBalanceService userBalanceService;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Counter matchedCounter;
+    private final Counter unmatchedCounter;
+
+    public PaymentReconciliationService(TransactionsRepository transactionsRepository,
+                                        TransactionArchiveRepository transactionArchiveRepository,
+                                        UserBalanceService userBalanceService,
+                                        RevenueRollupService revenueRollupService,
+                                        ApplicationEventPublisher eventPublisher,
+                                        MeterRegistry meterRegistry) {
+        this.transactionsRepository = transactionsRepository;
+        this.transactionArchiveRepository = transactionArchiveRepository;
+        this.userBalanceService = userBalanceService;
+        this.revenueRollupService = revenueRollupService;
+        this.eventPublisher = eventPublisher;
+        this.matchedCounter = meterRegistry.counter("minibill.reconcile.matched");
+        this.unmatchedCounter = meterRegistry.counter("minibill.reconcile.unmatched");
+    }
+
+    // rows 中的 null 代表該筆無法解析，firstIndex 為本批第一筆在整個檔案中的位置
+    // 比對後到更新前若有交易被他人改為已付款，拋出 OptimisticLockingFailureException 並整批回滾，由呼叫端重試
+    @Transactional
+    public ReconciliationResult reconcileChunk(List<PaymentRecord> rows, int firstIndex) {
+        ReconciliationResult result = new ReconciliationResult();
+        result.setTotal(rows.size());
+
+        Set<UUID> uuids = new HashSet<>();
+        Set<UUID> userIds = new HashSet<>();
+        Set<LocalDate> datelines = new HashSet<>();
+        for (PaymentRecord row : rows) {
+            if (row == null) {
+                continue;
+            }
+            if (row.getUuid() != null) {
+                uuids.add(row.getUuid());
+            } else if (row.getUserId() != null && row.getDateline() != null) {
+                userIds.add(row.getUserId());
+                datelines.add(row.getDateline());
+            }
+        }
+
+        Map<UUID, PaymentCandidate> byId = new HashMap<>();
+        if (!uuids.isEmpty()) {
+            for (PaymentCandidate candidate : transactionsRepository.findPaymentCandidatesByIds(uuids)) {
+                byId.put(candidate.getUuid(), candidate);
+            }
+        }
+        Set<UUID> missing = new HashSet<>(uuids);
+        missing.removeAll(byId.keySet());
+        Set<UUID> archived = missing.isEmpty()
+                ? new HashSet<>() : new HashSet<>(transactionArchiveRepository.findExistingUuids(missing));
+
+        // 同一組 (使用者, 幣別, 金額, 繳費期限) 的未付款交易，由舊到新依序配對
+        Map<String, Deque<PaymentCandidate>> unpaid = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (PaymentCandidate candidate : transactionsRepository.findUnpaidByUsersAndDatelines(userIds, datelines)) {
+                unpaid.computeIfAbsent(matchKey(candidate.getUserUuid(), candidate.getCurrency(),
+                        candidate.getAmountMinor(), candidate.getDateline()), k -> new ArrayDeque<>()).add(candidate);
+            }
+        }
+
+        // 先處理指定 uuid 的列，避免同批中以金額比對的列先配走它們
+        Map<UUID, PaymentCandidate> toPay = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            PaymentRecord row = rows.get(i);
+            if (row == null || row.getUuid() == null) {
+                continue;
+            }
+            int index = firstIndex + i;
+            PaymentCandidate candidate = byId.get(row.getUuid());
+            if (candidate == null) {
+                if (archived.contains(row.getUuid())) {
+                    result.setAlreadyPaid(result.getAlreadyPaid() + 1);
+                } else {
+                    result.addUnmatched(index, row.getReference(), "交易紀錄不存在");
+                }
+                continue;
+            }
+            if (Boolean.TRUE.equals(candidate.getIsPaid()) || toPay.containsKey(candidate.getUuid())) {
+                result.setAlreadyPaid(result.getAlreadyPaid() + 1);
+                continue;
+            }
+            if (row.getAmount() != null) {
+                try {
+                    if (Money.toMinor(row.getAmount(), candidate.getCurrency()) != candidate.getAmountMinor()) {
+                        result.addUnmatched(index, row.getReference(), "金額不符");
+                        continue;
+                    }
+                } catch (RuntimeException e) {
+                    result.addUnmatched(index, row.getReference(), e.getMessage());
+                    continue;
+                }
+            }
+            toPay.put(candidate.getUuid(), candidate);
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            PaymentRecord row = rows.get(i);
+            int index = firstIndex + i;
+            if (row == null) {
+                result.addUnmatched(index, null, "資料格式錯誤");
+                continue;
+            }
+            if (row.getUuid() != null) {
+                continue;
+            }
+            if (row.getUserId() == null || row.getAmount() == null || row.getDateline() == null) {
+                result.addUnmatched(index, row.getReference(), "缺少 uuid 或 userId、amount、dateline");
+                continue;
+            }
+            String currency = row.getCurrency() != null ? row.getCurrency() : Money.DEFAULT_CURRENCY;
+            long amountMinor;
+            try {
+                amountMinor = Money.toMinor(row.getAmount(), currency);
+            } catch (RuntimeException e) {
+                result.addUnmatched(index, row.getReference(), e.getMessage());
+                continue;
+            }
+            Deque<PaymentCandidate> candidates = unpaid.get(matchKey(row.getUserId(), currency, amountMinor, row.getDateline()));
+            PaymentCandidate candidate = null;
+            while (candidates != null && !candidates.isEmpty() && candidate == null) {
+                PaymentCandidate next = candidates.poll();
+                if (!toPay.containsKey(next.getUuid())) {
+                    candidate = next;
+                }
+            }
+            if (candidate == null) {
+                result.addUnmatched(index, row.getReference(), "找不到符合的未付款交易");
+                continue;
+            }
+            toPay.put(candidate.getUuid(), candidate);
+        }
+
+        if (!toPay.isEmpty()) {
+            applyPaid(toPay.values(), result);
+        }
+        matchedCounter.increment(result.getMatched());
+        unmatchedCounter.increment(result.getUnmatched().size());
+        return result;
+    }
+
+    private void applyPaid(Iterable<PaymentCandidate> paid, ReconciliationResult result) {
+        List<UUID> uuids = new ArrayList<>();
+        Set<UUID> userUuids = new HashSet<>();
+        // 每個商品每天的 {筆數, 金額合計}
+        Map<RevenueDaily.Key, long[]> revenueByCatalog = new HashMap<>();
+        long matchedMinor = 0;
+        for (PaymentCandidate candidate : paid) {
+            uuids.add(candidate.getUuid());
+            userUuids.add(candidate.getUserUuid());
+            long[] revenue = revenueByCatalog.computeIfAbsent(new RevenueDaily.Key(candidate.getCatalogUuid(),
+                    RevenueRollupService.dayOf(candidate.getCreatedAt())), k -> new long[2]);
+            revenue[0]++;
+            revenue[1] += candidate.getAmountMinor();
+            matchedMinor += candidate.getAmountMinor();
+        }
+
+        if (transactionsRepository.markPaid(uuids, new Timestamp(System.currentTimeMillis())) != uuids.size()) {
+            throw new OptimisticLockingFailureException("交易紀錄已被修改");
+        }
+        userBalanceService.onPaidBatch(userUuids);
+        revenueByCatalog.forEach((key, revenue) ->
+                revenueRollupService.onPaidBatch(key.getCatalogUuid(), key.getRevenueDate(), revenue[0], revenue[1]));
+        for (PaymentCandidate candidate : paid) {
+            eventPublisher.publishEvent(new TransactionEvent(TransactionEvent.Type.UPDATED,
+                    candidate.getUuid(), candidate.getUserUuid()));
+        }
+        result.setMatched(uuids.size());
+        result.setMatchedMinor(matchedMinor);
+    }
+
+    private static String matchKey(UUID userUuid, String currency, long amountMinor, LocalDate dateline) {
+        return userUuid + "|" + currency + "|" + amountMinor + "|" + dateline;
+    }
+}
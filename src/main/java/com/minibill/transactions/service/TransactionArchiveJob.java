@@ -0,0 +1,74 @@
+package com.minibill.transactions.service;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.minibill.transactions.repository.ScheduledJobLockRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// === 封存排程 ===
+// 每批獨立提交，批次之間不持有資料列的鎖；帳款摘要不受影響（封存的都是已付款交易，重建時一併計入）。
+// 每個節點都會觸發排程，由 scheduled_job_lock 的列鎖保證同時間只有一個節點在搬移
+@Component
+@ConditionalOnProperty(name = "minibill.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionArchiveJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiveJob.class);
+
+    private static final String JOB_NAME = "transaction-archive";
+
+    private final TransactionArchiveService transactionArchiveService;
+    private final ScheduledJobLockRepository scheduledJobLockRepository;
+
+    private final Counter movedCounter;
+    private final Timer runTimer;
+
+    @Value("${minibill.archive.batch-size:5000}")
+    private int batchSize;
+
+    public TransactionArchiveJob(TransactionArchiveService transactionArchiveService,
+                                 ScheduledJobLockRepository scheduledJobLockRepository,
+                                 MeterRegistry meterRegistry) {
+        this.transactionArchiveService = transactionArchiveService;
+        this.scheduledJobLockRepository = scheduledJobLockRepository;
+        this.movedCounter = meterRegistry.counter("minibill.archive.moved");
+        this.runTimer = meterRegistry.timer("minibill.archive.duration");
+    }
+
+    // 外層交易只用來持有叢集鎖，直到整輪封存結束
+    @Scheduled(cron = "${minibill.archive.cron:0 0 4 * * *}")
+    @Transactional
+    public void archive() {
+        scheduledJobLockRepository.insertIfAbsent(JOB_NAME);
+        if (scheduledJobLockRepository.tryLock(JOB_NAME) == null) {
+            log.info("交易封存由其他節點執行中，本節點略過");
+            return;
+        }
+        long start = System.nanoTime();
+        Timestamp cutoff = transactionArchiveService.horizon();
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionArchiveService.archiveBatch(cutoff, batchSize);
+            total += moved;
+            movedCounter.increment(moved);
+        } while (moved == batchSize);
+        transactionArchiveService.refreshArchivedThrough();
+
+        long elapsed = System.nanoTime() - start;
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("交易封存完成：搬移 {} 筆（{} 之前），耗時 {} ms", total, cutoff,
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+}
@@ -0,0 +1,67 @@
+package com.minibill.transactions.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.minibill.transactions.repository.TransactionArchiveRepository;
+
+// === 交易封存 ===
+// 建立超過 horizon-days 的已付款交易搬到 transactions_archive，transactions 只保留近期與未付款的資料。
+// 封存資料都早於 cutoff()，查詢條件不涉及這段時間時就不需要查封存表。
+@Service
+public class TransactionArchiveService {
+
+    private final TransactionArchiveRepository transactionArchiveRepository;
+
+    @Value("${minibill.archive.horizon-days:365}")
+    private int horizonDays;
+
+    // 封存表目前的 MAX(created_at)，定期與每次封存後更新；封存表為空時為 null
+    private volatile Timestamp archivedThrough;
+
+    public TransactionArchiveService(TransactionArchiveRepository transactionArchiveRepository) {
+        this.transactionArchiveRepository = transactionArchiveRepository;
+    }
+
+    // 封存工作搬移早於此時間的已付款交易
+    public Timestamp horizon() {
+        return Timestamp.valueOf(LocalDateTime.now().minusDays(horizonDays));
+    }
+
+    // 早於此時間的交易可能在封存表（查詢分流用）。
+    // 以封存表實際涵蓋的範圍為準，調大 horizon-days 後先前封存的資料仍查得到；
+    // 再與 horizon() 取較晚者，涵蓋其他節點剛封存、本節點快取尚未更新的部分
+    public Timestamp cutoff() {
+        Timestamp horizon = horizon();
+        Timestamp through = archivedThrough;
+        if (through == null) {
+            return horizon;
+        }
+        Timestamp afterArchived = Timestamp.from(through.toInstant().plusNanos(1));
+        return afterArchived.after(horizon) ? afterArchived : horizon;
+    }
+
+    @Scheduled(fixedDelayString = "${minibill.archive.bound-refresh-ms:300000}")
+    public void refreshArchivedThrough() {
+        archivedThrough = transactionArchiveRepository.findMaxCreatedAt();
+    }
+
+    // 搬移一批，回傳實際從 transactions 移除的筆數；每批獨立提交（封存工作本身持有叢集鎖的交易）
+    // 複製後到刪除前被修改的交易會留在 transactions，下次再搬
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int archiveBatch(Timestamp cutoff, int batchSize) {
+        Timestamp archivedAt = new Timestamp(System.currentTimeMillis());
+        if (transactionArchiveRepository.copyBatch(cutoff, batchSize, archivedAt) == 0) {
+            return 0;
+        }
+        int moved = transactionArchiveRepository.deleteArchivedFromHot(archivedAt);
+        transactionArchiveRepository.deleteStillHot(archivedAt);
+        return moved;
+    }
+}
@@ -0,0 +1,113 @@
+package com.minibill.transactions.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.minibill.config.WebSocketConfig;
+import com.minibill.transactions.dto.TransactionDTO;
+import com.minibill.transactions.dto.TransactionEvent;
+import com.minibill.transactions.repository.TransactionsRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// === 交易異動推送 ===
+// 交易提交後才收下事件（回滾的不會推送），同一筆交易在一個間隔內的事件合併為一個，
+// 每個間隔對每位使用者與管理員頻道各送出一則訊息；交易內容以一次 IN 查詢取得，所有訂閱者共用。
+// 沒有人訂閱時不查詢資料庫。
+@Component
+public class TransactionEventPublisher {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final TransactionsRepository transactionsRepository;
+
+    private final Counter sentCounter;
+    private final ConcurrentHashMap<UUID, TransactionEvent> pending = new ConcurrentHashMap<>();
+
+    public TransactionEventPublisher(SimpMessagingTemplate messagingTemplate,
+                                     SimpUserRegistry simpUserRegistry,
+                                     TransactionsRepository transactionsRepository,
+                                     MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.simpUserRegistry = simpUserRegistry;
+        this.transactionsRepository = transactionsRepository;
+        this.sentCounter = meterRegistry.counter("minibill.ws.transaction.messages");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionEvent(TransactionEvent event) {
+        pending.compute(event.getUuid(), (uuid, previous) -> {
+            if (previous == null) {
+                return event;
+            }
+            TransactionEvent.Type type = TransactionEvent.Type.merge(previous.getType(), event.getType());
+            return type == null ? null : new TransactionEvent(type, uuid, event.getUserUuid());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${minibill.ws.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        boolean adminsListening = !simpUserRegistry.findSubscriptions(
+                subscription -> WebSocketConfig.ALL_TRANSACTIONS_TOPIC.equals(subscription.getDestination())).isEmpty();
+
+        List<TransactionEvent> events = new ArrayList<>();
+        for (UUID uuid : pending.keySet()) {
+            TransactionEvent event = pending.remove(uuid);
+            if (event != null && (adminsListening || simpUserRegistry.getUser(event.getUserUuid().toString()) != null)) {
+                events.add(event);
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        attachTransactions(events);
+
+        Map<UUID, List<TransactionEvent>> byUser = new HashMap<>();
+        for (TransactionEvent event : events) {
+            byUser.computeIfAbsent(event.getUserUuid(), k -> new ArrayList<>()).add(event);
+        }
+        byUser.forEach((userUuid, userEvents) -> {
+            if (simpUserRegistry.getUser(userUuid.toString()) != null) {
+                messagingTemplate.convertAndSendToUser(userUuid.toString(),
+                        WebSocketConfig.USER_TRANSACTIONS_QUEUE, userEvents);
+                sentCounter.increment();
+            }
+        });
+        if (adminsListening) {
+            messagingTemplate.convertAndSend(WebSocketConfig.ALL_TRANSACTIONS_TOPIC, events);
+            sentCounter.increment();
+        }
+    }
+
+    // 新增與修改附上最新內容；查不到的（已被刪除或封存）只保留事件本身
+    private void attachTransactions(List<TransactionEvent> events) {
+        Map<UUID, TransactionEvent> byUuid = new HashMap<>();
+        for (TransactionEvent event : events) {
+            if (event.getType() != TransactionEvent.Type.DELETED) {
+                byUuid.put(event.getUuid(), event);
+            }
+        }
+        List<UUID> uuids = new ArrayList<>(byUuid.keySet());
+        for (int from = 0; from < uuids.size(); from += TransactionsService.BULK_CHUNK_SIZE) {
+            List<UUID> chunk = uuids.subList(from, Math.min(from + TransactionsService.BULK_CHUNK_SIZE, uuids.size()));
+            for (TransactionDTO dto : transactionsRepository.findDtosByIds(chunk)) {
+                byUuid.get(dto.getUuid()).setTransaction(dto);
+            }
+        }
+    }
+}
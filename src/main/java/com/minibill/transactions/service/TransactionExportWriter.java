@@ -0,0 +1,109 @@
+package com.minibill.transactions.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minibill.transactions.dto.TransactionDTO;
+
+// 匯出時逐筆寫出交易，不在記憶體累積資料
+public class TransactionExportWriter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("不支援的匯出格式：" + value);
+        }
+    }
+
+    private static final String CSV_HEADER = "uuid,userUuid,userName,userAccount,catalogUuid,catalogName,"
+            + "catalogDescription,catalogPrice,amount,currency,createdAt,dateline,isPaid,isOverdue";
+
+    private final Format format;
+    private final Writer out;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExportWriter(Format format, Writer out, ObjectMapper objectMapper) {
+        this.format = format;
+        this.out = out;
+        this.objectMapper = objectMapper;
+    }
+
+    public void writeHeader() throws IOException {
+        if (format == Format.CSV) {
+            out.write('\uFEFF'); // BOM，讓 Excel 正確顯示中文
+            out.write(CSV_HEADER);
+            out.write('\n');
+        }
+    }
+
+    public void write(TransactionDTO row) throws IOException {
+        if (format == Format.NDJSON) {
+            out.write(objectMapper.writeValueAsString(row));
+        } else {
+            out.write(csv(row.getUuid()));
+            out.write(',');
+            out.write(csv(row.getUserUuid()));
+            out.write(',');
+            out.write(csv(row.getUserName()));
+            out.write(',');
+            out.write(csv(row.getUserAccount()));
+            out.write(',');
+            out.write(csv(row.getCatalogUuid()));
+            out.write(',');
+            out.write(csv(row.getCatalogName()));
+            out.write(',');
+            out.write(csv(row.getCatalogDescription()));
+            out.write(',');
+            out.write(csv(row.getCatalogPrice()));
+            out.write(',');
+            out.write(csv(row.getAmount()));
+            out.write(',');
+            out.write(csv(row.getCurrency()));
+            out.write(',');
+            out.write(csv(row.getCreatedAt()));
+            out.write(',');
+            out.write(csv(row.getDateline()));
+            out.write(',');
+            out.write(csv(row.getIsPaid()));
+            out.write(',');
+            out.write(csv(row.getIsOverdue()));
+        }
+        out.write('\n');
+    }
+
+    // 含逗號、引號或換行的欄位需加上雙引號，並將引號重複一次
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
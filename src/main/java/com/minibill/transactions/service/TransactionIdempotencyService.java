@@ -0,0 +1,115 @@
+package com.minibill.transactions.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.minibill.transactions.model.IdempotencyKey;
+import com.minibill.transactions.model.Transactions;
+import com.minibill.transactions.repository.IdempotencyKeyRepository;
+import com.minibill.transactions.repository.TransactionsRepository;
+
+// === 以 Idempotency-Key 建立交易 ===
+// 近期的 key 放在有上限的 LRU 中，命中時直接回傳原交易；
+// 未命中時直接 INSERT key 紀錄（IdempotencyKey 一律 persist，不先查詢），由資料表主鍵擋下重複，衝突時再回頭讀出原交易；
+// 因此 LRU 淘汰、重新啟動或其他節點上的重送都會被擋下。
+// key 以使用者區分（主鍵為 user_uuid + key），同一節點上同一位使用者同一把 key 的並行請求會排隊，只有第一個真正寫入。
+@Service
+public class TransactionIdempotencyService {
+
+    private final TransactionsService transactionsService;
+    private final TransactionsRepository transactionsRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final Map<IdempotencyKey.Key, IdempotencyKey> recentKeys;
+    private final ConcurrentMap<IdempotencyKey.Key, Object> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${minibill.idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    public TransactionIdempotencyService(TransactionsService transactionsService,
+                                         TransactionsRepository transactionsRepository,
+                                         IdempotencyKeyRepository idempotencyKeyRepository,
+                                         @Value("${minibill.idempotency.cache-size:10000}") int cacheSize) {
+        this.transactionsService = transactionsService;
+        this.transactionsRepository = transactionsRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.recentKeys = new LinkedHashMap<IdempotencyKey.Key, IdempotencyKey>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyKey.Key, IdempotencyKey> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public Transactions createTransaction(UUID userId, UUID catalogId, BigDecimal amount, String key) {
+        if (key == null || key.isEmpty()) {
+            return transactionsService.createTransaction(userId, catalogId, amount);
+        }
+
+        IdempotencyKey.Key id = new IdempotencyKey.Key(userId, key);
+        Transactions replay = replayFromCache(id);
+        if (replay != null) {
+            return replay;
+        }
+
+        Object lock = inFlight.computeIfAbsent(id, k -> new Object());
+        try {
+            synchronized (lock) {
+                // 等待期間可能已由前一個請求完成
+                replay = replayFromCache(id);
+                if (replay != null) {
+                    return replay;
+                }
+                try {
+                    Transactions created = transactionsService.createTransaction(userId, catalogId, amount, key);
+                    remember(new IdempotencyKey(key, userId, created.getUuid()));
+                    return created;
+                } catch (DataIntegrityViolationException e) {
+                    // key 已存在（其他節點或 LRU 已淘汰），整筆已回滾，改讀原交易
+                    IdempotencyKey existing = idempotencyKeyRepository.findById(id).orElseThrow(() -> e);
+                    remember(existing);
+                    return load(existing);
+                }
+            }
+        } finally {
+            inFlight.remove(id, lock);
+        }
+    }
+
+    private Transactions replayFromCache(IdempotencyKey.Key id) {
+        IdempotencyKey cached;
+        synchronized (recentKeys) {
+            cached = recentKeys.get(id);
+        }
+        return cached == null ? null : load(cached);
+    }
+
+    private void remember(IdempotencyKey entry) {
+        synchronized (recentKeys) {
+            recentKeys.put(new IdempotencyKey.Key(entry.getUserUuid(), entry.getKey()), entry);
+        }
+    }
+
+    private Transactions load(IdempotencyKey entry) {
+        return transactionsRepository.findById(entry.getTransactionUuid())
+                .orElseThrow(() -> new RuntimeException("交易紀錄不存在"));
+    }
+
+    // === 定期清除過期的 key ===
+    @Scheduled(fixedDelayString = "${minibill.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours);
+        idempotencyKeyRepository.deleteCreatedBefore(new Timestamp(cutoff));
+    }
+}
@@ -0,0 +1,291 @@
+package com.minibill.transactions.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.minibill.catalog.repository.CatalogRepository;
+import com.minibill.transactions.dto.TransactionBulkResult;
+import com.minibill.transactions.dto.TransactionCreateRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// === 高吞吐寫入模式（minibill.ingest.journal.enabled=true 時啟用） ===
+// 請求只寫入 journal 並等待 fsync 即回應，由背景執行緒以批次寫入資料庫。
+// UUID 在接收時就決定，重播時由批次寫入略過已存在的 UUID，重啟後重播不會重複建立；
+// 帶 Idempotency-Key 時 UUID 由 (使用者, key) 推導，落盤逾時後用同一個 key 重送也只會建立一筆。
+// 背景寫入遇到非暫時性錯誤時有重試上限，之後逐筆寫入，仍失敗的紀錄寫到 dead-letter 檔後略過。
+@Service
+@ConditionalOnProperty(name = "minibill.ingest.journal.enabled", havingValue = "true")
+public class TransactionIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionIngestService.class);
+
+    private final TransactionsService transactionsService;
+    private final CatalogRepository catalogRepository;
+    private final IngestJournal journal;
+    private final Path deadLetterFile;
+
+    // 已確認存在的商品；商品只會下架不會刪除，命中後不必再查，未命中才查資料庫（其他節點新增的商品）
+    private final Set<UUID> knownCatalogs = ConcurrentHashMap.newKeySet();
+
+    private final Counter acceptedCounter;
+    private final Counter flushedCounter;
+    private final Counter rejectedCounter;
+    private final Counter deadLetteredCounter;
+    private final AtomicLong flushLagMs = new AtomicLong();
+
+    @Value("${minibill.ingest.journal.fsync-timeout-ms:5000}")
+    private long fsyncTimeoutMs;
+
+    @Value("${minibill.ingest.journal.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${minibill.ingest.journal.max-flush-attempts:5}")
+    private int maxFlushAttempts;
+
+    private volatile boolean running;
+    private Thread fsyncThread;
+    private Thread flushThread;
+
+    public TransactionIngestService(TransactionsService transactionsService,
+                                    CatalogRepository catalogRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${minibill.ingest.journal.dir:./data/ingest-journal}") String dir,
+                                    @Value("${minibill.ingest.journal.segment-bytes:67108864}") int segmentBytes) throws IOException {
+        this.transactionsService = transactionsService;
+        this.catalogRepository = catalogRepository;
+        this.journal = new IngestJournal(Paths.get(dir), segmentBytes);
+        this.deadLetterFile = Paths.get(dir, "dead-letter.ndjson");
+        this.acceptedCounter = meterRegistry.counter("minibill.ingest.accepted");
+        this.flushedCounter = meterRegistry.counter("minibill.ingest.flushed");
+        this.rejectedCounter = meterRegistry.counter("minibill.ingest.rejected");
+        this.deadLetteredCounter = meterRegistry.counter("minibill.ingest.dead.lettered");
+        meterRegistry.gauge("minibill.ingest.flush.lag.ms", flushLagMs);
+        meterRegistry.gauge("minibill.ingest.pending.bytes", journal, IngestJournal::pendingBytes);
+        meterRegistry.gauge("minibill.ingest.journal.bytes", journal, IngestJournal::sizeOnDisk);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        fsyncThread = new Thread(this::fsyncLoop, "ingest-journal-fsync");
+        fsyncThread.setDaemon(true);
+        fsyncThread.start();
+        flushThread = new Thread(this::flushLoop, "ingest-journal-flush");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        LockSupport.unpark(fsyncThread);
+        flushThread.interrupt();
+        flushThread.join(TimeUnit.SECONDS.toMillis(30));
+        fsyncThread.join(TimeUnit.SECONDS.toMillis(5));
+        journal.close();
+    }
+
+    // === 接收交易：寫入 journal 並等到落盤，回傳預先決定的 UUID ===
+    // 使用者已通過驗證；其餘（如金額精度）在寫入資料庫時才檢查，失敗的會記入 minibill.ingest.rejected
+    public UUID accept(UUID userId, UUID catalogId, BigDecimal amount, String idempotencyKey) throws IOException {
+        if (amount == null || amount.signum() <= 0) {
+            throw new RuntimeException("金額格式錯誤：" + amount);
+        }
+        UUID uuid = idempotencyKey != null
+                ? UUID.nameUUIDFromBytes(("ingest:" + userId + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8))
+                : UUID.randomUUID();
+        long position = journal.append(encode(System.currentTimeMillis(), uuid, userId, catalogId, amount));
+        LockSupport.unpark(fsyncThread);
+        try {
+            journal.awaitDurable(position, fsyncTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 journal 落盤時被中斷");
+        }
+        acceptedCounter.increment();
+        return uuid;
+    }
+
+    // 接收前確認商品存在，避免回 202 之後才在背景寫入時被拒絕
+    public boolean catalogExists(UUID catalogId) {
+        if (knownCatalogs.contains(catalogId)) {
+            return true;
+        }
+        if (!catalogRepository.existsById(catalogId)) {
+            return false;
+        }
+        knownCatalogs.add(catalogId);
+        return true;
+    }
+
+    // 有新寫入就 fsync；一次 force 涵蓋等待期間累積的所有紀錄
+    private void fsyncLoop() {
+        while (running || journal.hasUnsyncedWrites()) {
+            if (journal.hasUnsyncedWrites()) {
+                journal.sync();
+            } else {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+    }
+
+    // 讀出已落盤的紀錄，每次最多 BULK_CHUNK_SIZE 筆寫入資料庫，成功後才推進 checkpoint。
+    // 資料庫連不上等暫時性錯誤無限重試（紀錄都已落盤，不能丟）；其他錯誤連續 maxFlushAttempts 次後
+    // 改為逐筆寫入，把壞掉的那幾筆移到 dead-letter，其餘照常寫入
+    private void flushLoop() {
+        int failedAttempts = 0;
+        while (running) {
+            try {
+                List<byte[]> records = journal.read(TransactionsService.BULK_CHUNK_SIZE);
+                if (records.isEmpty()) {
+                    Thread.sleep(flushIntervalMs);
+                    continue;
+                }
+                List<TransactionCreateRequest> rows = new ArrayList<>(records.size());
+                long[] acceptedAt = new long[records.size()];
+                for (int i = 0; i < records.size(); i++) {
+                    ByteBuffer buffer = ByteBuffer.wrap(records.get(i));
+                    acceptedAt[i] = buffer.getLong();
+                    rows.add(decode(buffer));
+                }
+
+                TransactionBulkResult result = failedAttempts < maxFlushAttempts
+                        ? transactionsService.createTransactionsBulk(rows, 0)
+                        : flushOneByOne(rows, acceptedAt);
+                journal.commit();
+                failedAttempts = 0;
+
+                long oldestAcceptedAt = Long.MAX_VALUE;
+                for (long at : acceptedAt) {
+                    oldestAcceptedAt = Math.min(oldestAcceptedAt, at);
+                }
+                flushedCounter.increment(result.getCreated());
+                rejectedCounter.increment(result.getFailures().size());
+                flushLagMs.set(System.currentTimeMillis() - oldestAcceptedAt);
+                for (TransactionBulkResult.Failure failure : result.getFailures()) {
+                    log.warn("journal 紀錄無法寫入，已略過：{}（{}）",
+                            rows.get(failure.getIndex()).getUuid(), failure.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // 回到 checkpoint，稍後重試；已寫入的 UUID 重播時會略過
+                if (!isTransient(e)) {
+                    failedAttempts++;
+                }
+                log.error("journal 批次寫入失敗（連續第 {} 次非暫時性錯誤），稍後重試", failedAttempts, e);
+                try {
+                    journal.rewind();
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException ioe) {
+                    log.error("journal 無法回到 checkpoint，停止背景寫入", ioe);
+                    return;
+                }
+            }
+        }
+    }
+
+    // 整批一直失敗時逐筆寫入：仍失敗的那筆寫到 dead-letter 後略過；遇到暫時性錯誤則整批拋出重來
+    private TransactionBulkResult flushOneByOne(List<TransactionCreateRequest> rows, long[] acceptedAt) throws IOException {
+        TransactionBulkResult result = new TransactionBulkResult();
+        for (int i = 0; i < rows.size(); i++) {
+            TransactionCreateRequest row = rows.get(i);
+            try {
+                result.merge(transactionsService.createTransactionsBulk(Collections.singletonList(row), i));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+                deadLetter(row, acceptedAt[i]);
+                result.setTotal(result.getTotal() + 1);
+                result.addFailure(i, "已移到 dead-letter：" + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    // dead-letter 與 POST /transactions/bulk 的 NDJSON 格式相同，修正原因後可直接重送（UUID 相同，不會重複建立）
+    private void deadLetter(TransactionCreateRequest row, long acceptedAt) throws IOException {
+        String line = "{\"uuid\":\"" + row.getUuid() + "\",\"userId\":\"" + row.getUserId()
+                + "\",\"catalogId\":\"" + row.getCatalogId() + "\",\"amount\":" + row.getAmount().toPlainString()
+                + ",\"acceptedAt\":" + acceptedAt + "}\n";
+        Files.write(deadLetterFile, line.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        deadLetteredCounter.increment();
+    }
+
+    // 資料庫暫時無法使用（連線、逾時、死結等），重試即可恢復
+    private static boolean isTransient(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    // === 紀錄內容：[acceptedAt][uuid][userId][catalogId][金額字串長度][金額字串] ===
+    private static byte[] encode(long acceptedAt, UUID uuid, UUID userId, UUID catalogId, BigDecimal amount) {
+        byte[] amountBytes = amount.toPlainString().getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 16 * 3 + 2 + amountBytes.length);
+        buffer.putLong(acceptedAt);
+        putUuid(buffer, uuid);
+        putUuid(buffer, userId);
+        putUuid(buffer, catalogId);
+        buffer.putShort((short) amountBytes.length);
+        buffer.put(amountBytes);
+        return buffer.array();
+    }
+
+    private static TransactionCreateRequest decode(ByteBuffer buffer) {
+        TransactionCreateRequest row = new TransactionCreateRequest();
+        row.setUuid(getUuid(buffer));
+        row.setUserId(getUuid(buffer));
+        row.setCatalogId(getUuid(buffer));
+        byte[] amountBytes = new byte[buffer.getShort()];
+        buffer.get(amountBytes);
+        row.setAmount(new BigDecimal(new String(amountBytes, StandardCharsets.US_ASCII)));
+        return row;
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
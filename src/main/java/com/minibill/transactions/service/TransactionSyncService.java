@@ -0,0 +1,101 @@
+package com.minibill.transactions.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.minibill.transactions.dto.TransactionDTO;
+import com.minibill.transactions.dto.TransactionDelta;
+import com.minibill.transactions.repository.TransactionArchiveRepository;
+import com.minibill.transactions.repository.TransactionTombstoneRepository;
+import com.minibill.transactions.repository.TransactionsRepository;
+
+// === 增量同步與清單快取驗證 ===
+// watermark 為毫秒時間戳；回傳的新 watermark 往前保留 watermark-lag-ms，
+// 讓執行中、稍後才提交的交易不會被跳過（代價是這段時間內的異動可能重複回傳，客戶端以 uuid 覆蓋即可）。
+@Service
+public class TransactionSyncService {
+
+    private final TransactionsRepository transactionsRepository;
+    private final TransactionTombstoneRepository transactionTombstoneRepository;
+    private final TransactionArchiveRepository transactionArchiveRepository;
+
+    @Value("${minibill.sync.watermark-lag-ms:5000}")
+    private long watermarkLagMs;
+
+    @Value("${minibill.sync.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    public TransactionSyncService(TransactionsRepository transactionsRepository,
+                                  TransactionTombstoneRepository transactionTombstoneRepository,
+                                  TransactionArchiveRepository transactionArchiveRepository) {
+        this.transactionsRepository = transactionsRepository;
+        this.transactionTombstoneRepository = transactionTombstoneRepository;
+        this.transactionArchiveRepository = transactionArchiveRepository;
+    }
+
+    // since=0 表示客戶端沒有任何資料
+    public boolean isSnapshot(Timestamp since) {
+        return since.getTime() == 0;
+    }
+
+    public Timestamp parseWatermark(String watermark) {
+        try {
+            return new Timestamp(Long.parseLong(watermark));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("無效的 watermark");
+        }
+    }
+
+    // 比刪除紀錄的保留期限還舊時無法得知期間的刪除，客戶端需重新載入完整清單
+    public boolean isExpired(Timestamp since) {
+        return since.getTime() < System.currentTimeMillis() - TimeUnit.DAYS.toMillis(tombstoneRetentionDays);
+    }
+
+    // === 完整快照：使用者的所有交易（含封存），deleted 為空，回傳的 watermark 供之後的增量同步接續 ===
+    // watermark 在查詢前取得，查詢期間提交的異動下次會再回傳
+    public TransactionDelta getSnapshotByUser(UUID userId) {
+        long watermark = System.currentTimeMillis() - watermarkLagMs;
+        List<TransactionDTO> rows = new ArrayList<>(transactionsRepository.findChangedByUserUuid(userId, new Timestamp(0)));
+        rows.addAll(transactionArchiveRepository.findFirstPageByUserUuid(userId, Pageable.unpaged()));
+        return new TransactionDelta(rows, Collections.emptyList(), String.valueOf(watermark));
+    }
+
+    public TransactionDelta getChangesByUser(UUID userId, Timestamp since) {
+        long watermark = Math.max(since.getTime(), System.currentTimeMillis() - watermarkLagMs);
+        List<TransactionDTO> changed = transactionsRepository.findChangedByUserUuid(userId, since);
+        List<UUID> deleted = transactionTombstoneRepository.findDeletedSince(userId, since);
+        return new TransactionDelta(changed, deleted, String.valueOf(watermark));
+    }
+
+    // === 清單的 Last-Modified：最後一次新增、修改或刪除的時間 ===
+    // userId 為 null 表示所有交易
+    public long lastModified(UUID userId) {
+        Timestamp updated = userId == null
+                ? transactionsRepository.findLastUpdated()
+                : transactionsRepository.findLastUpdatedByUserUuid(userId);
+        Timestamp deleted = userId == null
+                ? transactionTombstoneRepository.findLastDeleted()
+                : transactionTombstoneRepository.findLastDeletedByUserUuid(userId);
+        return Math.max(updated == null ? 0 : updated.getTime(), deleted == null ? 0 : deleted.getTime());
+    }
+
+    // 清單中的商品欄位是交易上的快照，商品異動不影響清單，ETag 只看最後異動時間
+    public String listETag(long lastModified) {
+        return "W/\"" + lastModified + "\"";
+    }
+
+    @Scheduled(cron = "${minibill.sync.tombstone-purge-cron:0 15 4 * * *}")
+    public void purgeExpiredTombstones() {
+        transactionTombstoneRepository.deleteDeletedBefore(new Timestamp(
+                System.currentTimeMillis() - TimeUnit.DAYS.toMillis(tombstoneRetentionDays)));
+    }
+}
@@ -1,17 +1,52 @@
 package com.minibill.transactions.service;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 
 import com.minibill.catalog.model.Catalog;
 import com.minibill.catalog.repository.CatalogRepository;
+import com.minibill.common.Money;
+import com.minibill.report.model.RevenueDaily;
+import com.minibill.report.service.RevenueRollupService;
+import com.minibill.transactions.dto.TransactionBulkResult;
+import com.minibill.transactions.dto.TransactionCreateRequest;
+import com.minibill.transactions.dto.TransactionCursor;
 import com.minibill.transactions.dto.TransactionDTO;
+import com.minibill.transactions.dto.TransactionEvent;
+import com.minibill.transactions.dto.TransactionPage;
+import com.minibill.transactions.dto.TransactionSearchCursor;
+import com.minibill.transactions.dto.TransactionSearchFilter;
+import com.minibill.transactions.model.IdempotencyKey;
+import com.minibill.transactions.model.TransactionTombstone;
 import com.minibill.transactions.model.Transactions;
+import com.minibill.transactions.model.UserBalance;
+import com.minibill.transactions.repository.IdempotencyKeyRepository;
+import com.minibill.transactions.repository.TransactionArchiveRepository;
+import com.minibill.transactions.repository.TransactionTombstoneRepository;
 import com.minibill.transactions.repository.TransactionsRepository;
 import com.minibill.user.model.User;
 import com.minibill.user.repository.UserRepository;
@@ -19,20 +54,56 @@ import com.minibill.user.repository.UserRepository;
 @Service
 public class TransactionsService {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    // 與 hibernate.jdbc.batch_size 一致，且低於 Oracle IN 清單的 1000 筆上限
+    public static final int BULK_CHUNK_SIZE = 500;
+
     private final TransactionsRepository transactionsRepository;
     private final UserRepository userRepository;
     private final CatalogRepository catalogRepository;
+    private final UserBalanceService userBalanceService;
+    private final RevenueRollupService revenueRollupService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTombstoneRepository transactionTombstoneRepository;
+    private final TransactionArchiveRepository transactionArchiveRepository;
+    private final TransactionArchiveService transactionArchiveService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public TransactionsService(TransactionsRepository transactionsRepository,
                                UserRepository userRepository,
-                               CatalogRepository catalogRepository) {
+                               CatalogRepository catalogRepository,
+                               UserBalanceService userBalanceService,
+                               RevenueRollupService revenueRollupService,
+                               IdempotencyKeyRepository idempotencyKeyRepository,
+                               TransactionTombstoneRepository transactionTombstoneRepository,
+                               TransactionArchiveRepository transactionArchiveRepository,
+                               TransactionArchiveService transactionArchiveService,
+                               ApplicationEventPublisher eventPublisher) {
         this.transactionsRepository = transactionsRepository;
         this.userRepository = userRepository;
         this.catalogRepository = catalogRepository;
+        this.userBalanceService = userBalanceService;
+        this.revenueRollupService = revenueRollupService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTombstoneRepository = transactionTombstoneRepository;
+        this.transactionArchiveRepository = transactionArchiveRepository;
+        this.transactionArchiveService = transactionArchiveService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public Transactions createTransaction(UUID userId, UUID catalogId, BigDecimal amount) {
+        return createTransaction(userId, catalogId, amount, null);
     }
 
+    // amount 為一般金額，以商品幣別換算成最小單位
+    // idempotencyKey 不為 null 時一併寫入 key 紀錄；key 重複會在 flush 時因主鍵衝突整筆回滾
     @Transactional
-    public Transactions createTransaction(UUID userId, UUID catalogId, double amount) {
+    public Transactions createTransaction(UUID userId, UUID catalogId, BigDecimal amount, String idempotencyKey) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("找不到使用者"));
 
@@ -42,34 +113,172 @@ public class TransactionsService {
         Transactions transaction = new Transactions();
         transaction.setUser(user);
         transaction.setCatalog(catalog);
-        transaction.setAmount(amount);
+        transaction.snapshotCatalog(catalog);
+        transaction.setCurrency(catalog.getCurrency());
+        transaction.setAmountMinor(Money.toMinor(amount, catalog.getCurrency()));
         transaction.setIsPaid(false); // 預設未付款
-        return transactionsRepository.save(transaction);
+        Transactions saved = transactionsRepository.saveAndFlush(transaction);
+        if (idempotencyKey != null) {
+            idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(idempotencyKey, user.getUuid(), saved.getUuid()));
+        }
+        userBalanceService.onCreated(user.getUuid(), saved.getCurrency(), saved.getAmountMinor(), false);
+        revenueRollupService.onCreated(catalog.getUuid(), RevenueRollupService.dayOf(saved.getCreatedAt()),
+                saved.getAmountMinor(), false);
+        publish(TransactionEvent.Type.CREATED, saved.getUuid(), user.getUuid());
+        return saved;
     }
+    // === 批次建立交易 ===
+    // 一次處理一批（建議不超過 BULK_CHUNK_SIZE 筆），使用者與商品以 IN 查詢一次取回，
+    // 寫入走 Hibernate JDBC batch；個別資料錯誤只記錄在結果中，不影響同批其他筆
+    // rows 中的 null 代表該筆無法解析，firstIndex 為本批第一筆在整個請求中的位置
+    @Transactional
+    public TransactionBulkResult createTransactionsBulk(List<TransactionCreateRequest> rows, int firstIndex) {
+        TransactionBulkResult result = new TransactionBulkResult();
+        result.setTotal(rows.size());
+
+        Set<UUID> uuids = new HashSet<>();
+        Set<UUID> userIds = new HashSet<>();
+        Set<UUID> catalogIds = new HashSet<>();
+        for (TransactionCreateRequest row : rows) {
+            if (row != null) {
+                if (row.getUuid() != null) uuids.add(row.getUuid());
+                if (row.getUserId() != null) userIds.add(row.getUserId());
+                if (row.getCatalogId() != null) catalogIds.add(row.getCatalogId());
+            }
+        }
+        // 重送的 UUID 可能已被封存，兩張表都要比對
+        Set<UUID> existing = uuids.isEmpty() ? new HashSet<>() : new HashSet<>(transactionsRepository.findExistingUuids(uuids));
+        Set<UUID> notHot = new HashSet<>(uuids);
+        notHot.removeAll(existing);
+        if (!notHot.isEmpty()) {
+            existing.addAll(transactionArchiveRepository.findExistingUuids(notHot));
+        }
+        Map<UUID, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getUuid, Function.identity()));
+        Map<UUID, Catalog> catalogs = catalogRepository.findAllById(catalogIds).stream()
+                .collect(Collectors.toMap(Catalog::getUuid, Function.identity()));
+
+        int created = 0;
+        int skipped = 0;
+        // 每位使用者每個幣別的 {金額合計, 筆數}，以 long 累加
+        Map<UserBalance.Key, long[]> billedByUser = new HashMap<>();
+        // 每個商品每天的 {筆數, 金額合計}
+        Map<RevenueDaily.Key, long[]> revenueByCatalog = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            TransactionCreateRequest row = rows.get(i);
+            int index = firstIndex + i;
+            if (row == null) {
+                result.addFailure(index, "資料格式錯誤");
+                continue;
+            }
+            if (row.getUuid() != null && existing.contains(row.getUuid())) {
+                skipped++;
+                continue;
+            }
+            User user = users.get(row.getUserId());
+            if (user == null) {
+                result.addFailure(index, "找不到使用者");
+                continue;
+            }
+            Catalog catalog = catalogs.get(row.getCatalogId());
+            if (catalog == null) {
+                result.addFailure(index, "找不到商品");
+                continue;
+            }
+            long amountMinor;
+            try {
+                amountMinor = Money.toMinor(row.getAmount(), catalog.getCurrency());
+            } catch (RuntimeException e) {
+                result.addFailure(index, e.getMessage());
+                continue;
+            }
+
+            Transactions transaction = new Transactions();
+            transaction.setUuid(row.getUuid());
+            transaction.setUser(user);
+            transaction.setCatalog(catalog);
+            transaction.snapshotCatalog(catalog);
+            transaction.setCurrency(catalog.getCurrency());
+            transaction.setAmountMinor(amountMinor);
+            transaction.setIsPaid(false); // 預設未付款
+            entityManager.persist(transaction);
+            if (row.getUuid() != null) {
+                existing.add(row.getUuid());  // 同一批內重複的 UUID 只寫一次
+            }
+            publish(TransactionEvent.Type.CREATED, transaction.getUuid(), user.getUuid());
+            long[] totals = billedByUser.computeIfAbsent(new UserBalance.Key(user.getUuid(), catalog.getCurrency()),
+                    k -> new long[2]);
+            totals[0] += amountMinor;
+            totals[1]++;
+            long[] revenue = revenueByCatalog.computeIfAbsent(new RevenueDaily.Key(catalog.getUuid(),
+                    RevenueRollupService.dayOf(transaction.getCreatedAt())), k -> new long[2]);
+            revenue[0]++;
+            revenue[1] += amountMinor;
+            created++;
+        }
+
+        // 在方法內送出，讓資料庫錯誤在這裡拋出並整批回滾
+        entityManager.flush();
+        entityManager.clear();
+        // 帳款摘要每位使用者每個幣別只更新一次
+        billedByUser.forEach((key, totals) ->
+                userBalanceService.onCreatedBatch(key.getUserUuid(), key.getCurrency(), totals[0], totals[1]));
+        revenueByCatalog.forEach((key, revenue) ->
+                revenueRollupService.onCreatedBatch(key.getCatalogUuid(), key.getRevenueDate(), revenue[0], revenue[1]));
+        result.setCreated(created);
+        result.setSkipped(skipped);
+        return result;
+    }
+
     // === 刪除交易 ===
+    @Transactional
     public void deleteTransaction(UUID id) {
-        if (!transactionsRepository.existsById(id)) {
-            throw new RuntimeException("交易紀錄不存在");
-        }
-        transactionsRepository.deleteById(id);
+        Transactions transaction = transactionsRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("交易紀錄不存在"));
+        transactionsRepository.delete(transaction);
+        // 留下刪除紀錄，讓增量同步的客戶端得知
+        transactionTombstoneRepository.save(new TransactionTombstone(id, transaction.getUser().getUuid(),
+                new Timestamp(System.currentTimeMillis())));
+        transactionsRepository.flush();
+        userBalanceService.onDeleted(transaction.getUser().getUuid(), transaction.getCurrency(),
+                transaction.getAmountMinor(), Boolean.TRUE.equals(transaction.getIsPaid()));
+        revenueRollupService.onDeleted(transaction.getCatalog().getUuid(),
+                RevenueRollupService.dayOf(transaction.getCreatedAt()), transaction.getAmountMinor(),
+                Boolean.TRUE.equals(transaction.getIsPaid()));
+        publish(TransactionEvent.Type.DELETED, id, transaction.getUser().getUuid());
     }
 
     // === 修改交易 ===
+    // expectedVersion 來自 If-Match，不為 null 時版本不符即拋出 OptimisticLockingFailureException；
+    // 讀取到寫入之間若被他人修改，Hibernate 的版本檢查同樣會拋出該例外
     @Transactional
-    public TransactionDTO updateTransaction(UUID id, UUID catalogId, Double amount, Boolean isPaid) {
+    public TransactionDTO updateTransaction(UUID id, UUID catalogId, BigDecimal amount, Boolean isPaid,
+                                            Long expectedVersion) {
+        // 只改付款狀態：走單一條件式 UPDATE，不載入整筆交易
+        if (catalogId == null && amount == null && isPaid != null) {
+            return updatePaid(id, isPaid, expectedVersion);
+        }
+
         Transactions transaction = transactionsRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("交易紀錄不存在"));
+        checkVersion(expectedVersion, transaction.getVersion());
+        String oldCurrency = transaction.getCurrency();
+        long oldAmount = transaction.getAmountMinor();
+        boolean oldPaid = Boolean.TRUE.equals(transaction.getIsPaid());
+        UUID oldCatalogUuid = transaction.getCatalog().getUuid();
         
         // 更新商品資訊（如果提供）
         if (catalogId != null) {
             Catalog catalog = catalogRepository.findById(catalogId)
                     .orElseThrow(() -> new RuntimeException("找不到商品"));
             transaction.setCatalog(catalog);
+            transaction.snapshotCatalog(catalog);
+            transaction.setCurrency(catalog.getCurrency());
         }
         
         // 更新金額（如果提供）
         if (amount != null) {
-            transaction.setAmount(amount);
+            transaction.setAmountMinor(Money.toMinor(amount, transaction.getCurrency()));
         }
         
         // 更新付款狀態（如果提供）
@@ -77,9 +286,48 @@ public class TransactionsService {
             transaction.setIsPaid(isPaid);
         }
         
-        Transactions updatedTransaction = transactionsRepository.save(transaction);
+        Transactions updatedTransaction = transactionsRepository.saveAndFlush(transaction);
+        userBalanceService.onChanged(updatedTransaction.getUser().getUuid(), oldCurrency, oldAmount, oldPaid,
+                updatedTransaction.getCurrency(), updatedTransaction.getAmountMinor(),
+                Boolean.TRUE.equals(updatedTransaction.getIsPaid()));
+        revenueRollupService.onChanged(oldCatalogUuid, updatedTransaction.getCatalog().getUuid(),
+                RevenueRollupService.dayOf(updatedTransaction.getCreatedAt()), oldAmount, oldPaid,
+                updatedTransaction.getAmountMinor(), Boolean.TRUE.equals(updatedTransaction.getIsPaid()));
+        publish(TransactionEvent.Type.UPDATED, id, updatedTransaction.getUser().getUuid());
         return convertToDTO(updatedTransaction);
     }
+
+    private TransactionDTO updatePaid(UUID id, boolean isPaid, Long expectedVersion) {
+        TransactionsRepository.PaymentState state = transactionsRepository.findPaymentState(id)
+                .orElseThrow(() -> new RuntimeException("交易紀錄不存在"));
+        checkVersion(expectedVersion, state.getVersion());
+
+        boolean oldPaid = Boolean.TRUE.equals(state.getIsPaid());
+        if (oldPaid != isPaid) {
+            if (transactionsRepository.updatePaidIfVersion(id, isPaid, state.getVersion(),
+                    new Timestamp(System.currentTimeMillis())) == 0) {
+                throw new OptimisticLockingFailureException("交易紀錄已被修改");
+            }
+            userBalanceService.onChanged(state.getUserUuid(), state.getCurrency(), state.getAmountMinor(), oldPaid,
+                    state.getCurrency(), state.getAmountMinor(), isPaid);
+            revenueRollupService.onChanged(state.getCatalogUuid(), state.getCatalogUuid(),
+                    RevenueRollupService.dayOf(state.getCreatedAt()), state.getAmountMinor(), oldPaid,
+                    state.getAmountMinor(), isPaid);
+            publish(TransactionEvent.Type.UPDATED, id, state.getUserUuid());
+        }
+        return getTransactionById(id);
+    }
+
+    // 交易提交後由 TransactionEventPublisher 推送
+    private void publish(TransactionEvent.Type type, UUID uuid, UUID userUuid) {
+        eventPublisher.publishEvent(new TransactionEvent(type, uuid, userUuid));
+    }
+
+    private void checkVersion(Long expectedVersion, Long currentVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new OptimisticLockingFailureException("交易紀錄已被修改");
+        }
+    }
     
     // === 轉換為 DTO ===
     private TransactionDTO convertToDTO(Transactions transaction) {
@@ -89,31 +337,172 @@ public class TransactionsService {
             transaction.getUser().getName(),
             transaction.getUser().getAccount(),
             transaction.getCatalog().getUuid(),
-            transaction.getCatalog().getName(),
-            transaction.getCatalog().getDescription(),
-            transaction.getCatalog().getPrice(),
-            transaction.getAmount(),
+            transaction.getCatalogName(),
+            transaction.getCatalogDescription(),
+            transaction.getCatalogPriceMinor(),
+            transaction.getAmountMinor(),
+            transaction.getCurrency(),
             transaction.getCreatedAt(),
             transaction.getDateline(),
-            transaction.getIsPaid()
+            transaction.getIsPaid(),
+            transaction.getIsOverdue(),
+            transaction.getVersion(),
+            transaction.getUpdatedAt()
         );
     }
     
-    public List<TransactionDTO> getAllTransactions() {
-        return transactionsRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // === 查詢所有交易（Keyset 分頁） ===
+    // 由新到舊；這一頁已涵蓋到封存期限之前時，才一併查詢封存表
+    public TransactionPage getAllTransactions(String cursor, Integer size) {
+        Pageable limit = pageLimit(size);
+        TransactionCursor after = (cursor == null || cursor.isEmpty()) ? null : TransactionCursor.decode(cursor);
+        List<TransactionDTO> rows = after == null
+                ? transactionsRepository.findFirstPage(limit)
+                : transactionsRepository.findPageAfter(after.getCreatedAt(), after.getUuid(), limit);
+        if (reachesArchive(rows, limit.getPageSize())) {
+            List<TransactionDTO> archived = after == null
+                    ? transactionArchiveRepository.findFirstPage(limit)
+                    : transactionArchiveRepository.findPageAfter(after.getCreatedAt(), after.getUuid(), limit);
+            rows = merge(rows, archived, NEWEST_FIRST, limit.getPageSize());
+        }
+        return toPage(rows, limit.getPageSize());
     }
 
-    public List<TransactionDTO> getTransactionsByUser(UUID userId) {
-        return transactionsRepository.findByUserUuid(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // === 查詢使用者的交易（Keyset 分頁） ===
+    public TransactionPage getTransactionsByUser(UUID userId, String cursor, Integer size) {
+        Pageable limit = pageLimit(size);
+        TransactionCursor after = (cursor == null || cursor.isEmpty()) ? null : TransactionCursor.decode(cursor);
+        List<TransactionDTO> rows = after == null
+                ? transactionsRepository.findFirstPageByUserUuid(userId, limit)
+                : transactionsRepository.findPageAfterByUserUuid(userId, after.getCreatedAt(), after.getUuid(), limit);
+        if (reachesArchive(rows, limit.getPageSize())) {
+            List<TransactionDTO> archived = after == null
+                    ? transactionArchiveRepository.findFirstPageByUserUuid(userId, limit)
+                    : transactionArchiveRepository.findPageAfterByUserUuid(userId, after.getCreatedAt(), after.getUuid(), limit);
+            rows = merge(rows, archived, NEWEST_FIRST, limit.getPageSize());
+        }
+        return toPage(rows, limit.getPageSize());
+    }
+
+    // === 條件查詢（Keyset 分頁，排序欄位可選） ===
+    public TransactionPage searchTransactions(TransactionSearchFilter filter, String cursor, Integer size) {
+        int pageSize = pageLimit(size).getPageSize();
+        TransactionSearchCursor after = (cursor == null || cursor.isEmpty())
+                ? null : TransactionSearchCursor.decode(cursor, filter.getSort());
+        List<TransactionDTO> rows = transactionsRepository.search(filter, after, pageSize);
+
+        // 只查未付款、起日在封存期限之後，或依建立時間由新到舊且這一頁還沒到封存期限時，不需要封存表
+        boolean needsArchive = !Boolean.FALSE.equals(filter.getIsPaid()) && overlapsArchive(filter.getFrom());
+        if (needsArchive && filter.getSort() == TransactionSearchFilter.Sort.CREATED_AT && filter.isDescending()) {
+            needsArchive = reachesArchive(rows, pageSize);
+        }
+        if (needsArchive) {
+            rows = merge(rows, transactionsRepository.searchArchive(filter, after, pageSize),
+                    searchOrder(filter), pageSize);
+        }
+
+        String nextCursor = null;
+        if (rows.size() == pageSize) {
+            nextCursor = TransactionSearchCursor.of(filter.getSort(), rows.get(rows.size() - 1)).encode();
+        }
+        return new TransactionPage(rows, nextCursor);
+    }
+
+    // 未指定筆數用預設值，超過上限則截斷
+    private Pageable pageLimit(Integer size) {
+        int pageSize = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        return PageRequest.of(0, pageSize);
+    }
+
+    // 取滿一頁才回傳下一頁游標
+    private TransactionPage toPage(List<TransactionDTO> items, int pageSize) {
+        String nextCursor = null;
+        if (items.size() == pageSize) {
+            nextCursor = TransactionCursor.of(items.get(items.size() - 1)).encode();
+        }
+        return new TransactionPage(items, nextCursor);
+    }
+
+    // === 封存資料的合併 ===
+    // 封存資料的建立時間都早於 cutoff：由新到舊的一頁若已取滿且最後一筆不早於 cutoff，封存表不會有更前面的資料
+    private boolean reachesArchive(List<TransactionDTO> rows, int pageSize) {
+        return rows.size() < pageSize
+                || rows.get(rows.size() - 1).getCreatedAt().before(transactionArchiveService.cutoff());
+    }
+
+    private boolean overlapsArchive(Timestamp from) {
+        return from == null || from.before(transactionArchiveService.cutoff());
     }
 
+    // 兩邊各自已排序且各取一頁，合併後取前 limit 筆
+    private static List<TransactionDTO> merge(List<TransactionDTO> hot, List<TransactionDTO> archived,
+                                              Comparator<TransactionDTO> order, int limit) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<TransactionDTO> rows = new ArrayList<>(hot.size() + archived.size());
+        rows.addAll(hot);
+        rows.addAll(archived);
+        rows.sort(order);
+        return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+    }
+
+    // 與資料庫中 RAW(16) 的 UUID 排序一致（逐位元組無號比較）
+    private static final Comparator<UUID> UUID_ORDER =
+            Comparator.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+                    .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private static final Comparator<TransactionDTO> NEWEST_FIRST =
+            Comparator.comparing(TransactionDTO::getCreatedAt)
+                    .thenComparing(TransactionDTO::getUuid, UUID_ORDER)
+                    .reversed();
+
+    private static Comparator<TransactionDTO> searchOrder(TransactionSearchFilter filter) {
+        Comparator<TransactionDTO> order;
+        switch (filter.getSort()) {
+            case DATELINE:
+                order = Comparator.comparing(TransactionDTO::getDateline);
+                break;
+            case AMOUNT:
+                order = Comparator.comparing(TransactionDTO::getAmountMinor);
+                break;
+            default:
+                order = Comparator.comparing(TransactionDTO::getCreatedAt);
+        }
+        order = order.thenComparing(TransactionDTO::getUuid, UUID_ORDER);
+        return filter.isDescending() ? order.reversed() : order;
+    }
+
+    // === 匯出交易：逐筆讀取逐筆寫出，heap 用量與筆數無關 ===
+    // 查詢結果為 DTO 而非 Entity，不會累積在 persistence context 中
+    // 範圍涵蓋封存期限之前時，先輸出封存資料再輸出 transactions。
+    // 兩個查詢在同一個 SERIALIZABLE 唯讀交易內讀同一個時間點的資料，匯出期間被封存搬移的交易不會兩邊都漏掉
+    // （javax 的 @Transactional 無法指定隔離等級，這裡用 Spring 的）
+    @org.springframework.transaction.annotation.Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+    public void exportTransactions(Timestamp from, Timestamp to, Boolean isPaid,
+                                   TransactionExportWriter writer) throws IOException {
+        writer.writeHeader();
+        if (!Boolean.FALSE.equals(isPaid) && overlapsArchive(from)) {
+            try (Stream<TransactionDTO> rows = transactionArchiveRepository.streamForExport(from, to, isPaid)) {
+                writeAll(rows, writer);
+            }
+        }
+        try (Stream<TransactionDTO> rows = transactionsRepository.streamForExport(from, to, isPaid)) {
+            writeAll(rows, writer);
+        }
+    }
+
+    private static void writeAll(Stream<TransactionDTO> rows, TransactionExportWriter writer) throws IOException {
+        Iterator<TransactionDTO> it = rows.iterator();
+        while (it.hasNext()) {
+            writer.write(it.next());
+        }
+    }
+
+    // 不在 transactions 時再查封存表
     public TransactionDTO getTransactionById(UUID id) {
-        Transactions transaction = transactionsRepository.findById(id)
+        return transactionsRepository.findDtoById(id)
+                .or(() -> transactionArchiveRepository.findDtoById(id))
                 .orElseThrow(() -> new RuntimeException("交易紀錄不存在"));
-        return convertToDTO(transaction);
     }
 }
@@ -0,0 +1,96 @@
+package com.minibill.transactions.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import javax.transaction.Transactional;
+
+import org.springframework.stereotype.Service;
+
+import com.minibill.transactions.model.UserBalance;
+import com.minibill.transactions.repository.UserBalanceRepository;
+
+// 使用者帳款摘要（每個幣別一列）：由交易寫入路徑在同一個 DB 交易內呼叫，讀取只需一次主鍵範圍查詢
+@Service
+public class UserBalanceService {
+
+    private final UserBalanceRepository userBalanceRepository;
+
+    public UserBalanceService(UserBalanceRepository userBalanceRepository) {
+        this.userBalanceRepository = userBalanceRepository;
+    }
+
+    // === 查詢摘要：每個幣別一列，依幣別排序（沒有任何交易的使用者回傳空清單） ===
+    public List<UserBalance> getBalances(UUID userUuid) {
+        return userBalanceRepository.findByUserUuidOrderByCurrency(userUuid);
+    }
+
+    // === 交易異動 ===
+    @Transactional
+    public void onCreated(UUID userUuid, String currency, long amount, boolean paid) {
+        applyChange(userUuid, currency, amount, paid ? 0 : amount, paid ? 0 : 1, !paid);
+    }
+
+    @Transactional
+    public void onDeleted(UUID userUuid, String currency, long amount, boolean paid) {
+        applyChange(userUuid, currency, -amount, paid ? 0 : -amount, paid ? 0 : -1, !paid);
+    }
+
+    // 換成不同幣別的商品時從舊幣別移到新幣別
+    @Transactional
+    public void onChanged(UUID userUuid, String oldCurrency, long oldAmount, boolean oldPaid,
+                          String newCurrency, long newAmount, boolean newPaid) {
+        if (!oldCurrency.equals(newCurrency)) {
+            onDeleted(userUuid, oldCurrency, oldAmount, oldPaid);
+            onCreated(userUuid, newCurrency, newAmount, newPaid);
+            return;
+        }
+        long oldUnpaid = oldPaid ? 0 : oldAmount;
+        long newUnpaid = newPaid ? 0 : newAmount;
+        long unpaidCount = (newPaid ? 0 : 1) - (oldPaid ? 0 : 1);
+        applyChange(userUuid, newCurrency, newAmount - oldAmount, newUnpaid - oldUnpaid, unpaidCount,
+                oldPaid != newPaid);
+    }
+
+    // 批次建立時每位使用者每個幣別只呼叫一次
+    @Transactional
+    public void onCreatedBatch(UUID userUuid, String currency, long amount, long count) {
+        applyChange(userUuid, currency, amount, amount, count, true);
+    }
+
+    // 批次標記已付款：受影響的使用者以一個敘述重算，不逐筆套用差量
+    @Transactional
+    public int onPaidBatch(Collection<UUID> userUuids) {
+        return userBalanceRepository.refreshUnpaid(userUuids, LocalDate.now());
+    }
+
+    // 摘要列不存在時先建立再套用差量；同一使用者的第一筆交易並行寫入時，
+    // 後到的 insertIfAbsent 會略過已存在的列，不會因主鍵衝突讓整筆交易回滾
+    private void applyChange(UUID userUuid, String currency, long billed, long unpaid, long unpaidCount,
+                             boolean scheduleChanged) {
+        if (userBalanceRepository.applyDelta(userUuid, currency, billed, unpaid, unpaidCount) == 0) {
+            userBalanceRepository.insertIfAbsent(userUuid, currency);
+            userBalanceRepository.applyDelta(userUuid, currency, billed, unpaid, unpaidCount);
+        }
+        if (scheduleChanged) {
+            userBalanceRepository.refreshSchedule(userUuid, currency, LocalDate.now());
+        }
+    }
+
+    // 逾期掃描結束後呼叫
+    @Transactional
+    public int refreshOverdueCounts() {
+        return userBalanceRepository.refreshOverdueCounts(LocalDate.now());
+    }
+
+    // === 全量重建（修復用）：只在啟動移轉或管理員手動觸發時執行 ===
+    // 重建期間整張表鎖住、所有帳款寫入都會等待，不排入例行排程；平常由增量更新維護
+    @Transactional
+    public int rebuildAll() {
+        userBalanceRepository.lockForRebuild();
+        userBalanceRepository.deleteAllRows();
+        return userBalanceRepository.insertAllFromTransactions(LocalDate.now());
+    }
+}
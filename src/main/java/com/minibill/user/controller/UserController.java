@@ -1,12 +1,12 @@
 package com.minibill.user.controller;
 
 import com.minibill.security.PermissionRequired;
+import com.minibill.security.UserPrincipal;
 import com.minibill.user.dto.UserUpdateRequest;
 import com.minibill.user.model.User;
 import com.minibill.user.repository.UserRepository;
+import com.minibill.user.service.PermissionLevelCache;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,10 +19,13 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PermissionLevelCache permissionLevelCache;
 
-    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                          PermissionLevelCache permissionLevelCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.permissionLevelCache = permissionLevelCache;
     }
 
     // === 查詢所有使用者（僅最高權限） ===
@@ -35,12 +38,8 @@ public class UserController {
     // === 查詢單一使用者（自己或最高權限） ===
     @GetMapping("/{userId}")
     public ResponseEntity<User> getUser(@PathVariable UUID userId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String account = auth.getName();
-        User currentUser = userRepository.findByAccount(account)
-                .orElseThrow(() -> new RuntimeException("使用者不存在"));
-
-        if (!currentUser.getUuid().equals(userId) && (Integer) auth.getDetails() != 99) {
+        UserPrincipal currentUser = UserPrincipal.current();
+        if (!currentUser.getUuid().equals(userId) && !currentUser.isAdmin()) {
             return ResponseEntity.status(403).build();
         }
         return ResponseEntity.ok(userRepository.findById(userId)
@@ -50,12 +49,8 @@ public class UserController {
     // === 修改使用者（自己或最高權限） ===
     @PutMapping("/{userId}")
     public ResponseEntity<User> updateUser(@PathVariable UUID userId, @RequestBody UserUpdateRequest updatedUser) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String account = auth.getName();
-        User currentUser = userRepository.findByAccount(account)
-                .orElseThrow(() -> new RuntimeException("使用者不存在"));
-
-        if (!currentUser.getUuid().equals(userId) && (Integer) auth.getDetails() != 99) {
+        UserPrincipal currentUser = UserPrincipal.current();
+        if (!currentUser.getUuid().equals(userId) && !currentUser.isAdmin()) {
             return ResponseEntity.status(403).build();
         }
 
@@ -76,6 +71,7 @@ public class UserController {
     @PermissionRequired(99)
     public ResponseEntity<String> deleteUser(@PathVariable UUID userId) {
         userRepository.deleteById(userId);
+        permissionLevelCache.invalidate(userId);
         return ResponseEntity.ok("使用者已刪除");
     }
 }
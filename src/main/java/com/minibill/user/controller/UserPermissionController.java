@@ -4,8 +4,6 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,10 +14,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.minibill.security.PermissionRequired;
+import com.minibill.security.UserPrincipal;
 import com.minibill.user.dto.UserPermissionDTO;
-import com.minibill.user.model.User;
 import com.minibill.user.model.UserPermission;
-import com.minibill.user.repository.UserRepository;
 import com.minibill.user.service.UserPermissionService;
 
 @RestController
@@ -27,11 +24,9 @@ import com.minibill.user.service.UserPermissionService;
 public class UserPermissionController {
 
     private final UserPermissionService userPermissionService;
-    private final UserRepository userRepository;
 
-    public UserPermissionController(UserPermissionService userPermissionService, UserRepository userRepository) {
+    public UserPermissionController(UserPermissionService userPermissionService) {
         this.userPermissionService = userPermissionService;
-        this.userRepository = userRepository;
     }
 
     // === 指派權限給使用者 ===
@@ -39,11 +34,7 @@ public class UserPermissionController {
     @PermissionRequired(99)
     public ResponseEntity<String> assignPermission(@PathVariable UUID userId, @RequestParam UUID permissionId) {
         // 防止管理員修改自己的權限
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String account = auth.getName();
-        User currentUser = userRepository.findByAccount(account)
-                .orElseThrow(() -> new RuntimeException("使用者不存在"));
-        
+        UserPrincipal currentUser = UserPrincipal.current();
         if (currentUser.getUuid().equals(userId)) {
             return ResponseEntity.status(403).body("不能修改自己的權限");
         }
@@ -57,11 +48,7 @@ public class UserPermissionController {
     @PermissionRequired(99)
     public ResponseEntity<String> updateUserPermission(@PathVariable UUID userId, @RequestParam UUID permissionId) {
         // 防止管理員修改自己的權限
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String account = auth.getName();
-        User currentUser = userRepository.findByAccount(account)
-                .orElseThrow(() -> new RuntimeException("使用者不存在"));
-        
+        UserPrincipal currentUser = UserPrincipal.current();
         if (currentUser.getUuid().equals(userId)) {
             return ResponseEntity.status(403).body("不能修改自己的權限");
         }
@@ -82,11 +69,7 @@ public class UserPermissionController {
     @PermissionRequired(99)
     public ResponseEntity<String> removeUserPermission(@PathVariable UUID userId) {
         // 防止管理員刪除自己的權限
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String account = auth.getName();
-        User currentUser = userRepository.findByAccount(account)
-                .orElseThrow(() -> new RuntimeException("使用者不存在"));
-        
+        UserPrincipal currentUser = UserPrincipal.current();
         if (currentUser.getUuid().equals(userId)) {
             return ResponseEntity.status(403).body("不能刪除自己的權限");
         }
@@ -100,11 +83,7 @@ public class UserPermissionController {
     @PermissionRequired(99)
     public ResponseEntity<List<UserPermissionDTO>> getAllUsersWithPermissions() {
         // 獲取當前登入的使用者資訊
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String account = auth.getName();
-        User currentUser = userRepository.findByAccount(account)
-                .orElseThrow(() -> new RuntimeException("使用者不存在"));
-        
+        UserPrincipal currentUser = UserPrincipal.current();
         // 傳遞當前使用者ID，排除自己不能修改自己的權限
         return ResponseEntity.ok(userPermissionService.getAllUserPermissions(currentUser.getUuid()));
     }
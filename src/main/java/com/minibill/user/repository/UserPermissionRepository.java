@@ -25,6 +25,11 @@ public interface UserPermissionRepository extends JpaRepository<UserPermission,
         "FROM UserPermission up JOIN up.permission p " +
         "WHERE up.user = :user")
     Integer findPermissionLevelByUser(@Param("user") User user);
+    // 使用者有多筆權限時取最高等級；沒有權限時為 null
+    @Query("SELECT MAX(p.permissionLevel) " +
+        "FROM UserPermission up JOIN up.permission p " +
+        "WHERE up.user.uuid = :userUuid")
+    Integer findMaxPermissionLevelByUserUuid(@Param("userUuid") UUID userUuid);
     // 如果要檢查使用者是否已擁有某個權限
     boolean existsByUserUuidAndPermissionUuid(UUID userUuid, UUID permissionUuid);
     void deleteByUser(User user);
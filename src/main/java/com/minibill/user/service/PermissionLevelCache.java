@@ -0,0 +1,91 @@
+package com.minibill.user.service;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.minibill.user.repository.UserPermissionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// === 使用者目前的權限等級（userUuid → permissionLevel） ===
+// 第一次查詢才載入，UserPermissionService 異動權限時同步失效；權限檢查與登入都不必查資料庫，也不會用到 Token 裡過時的等級。
+// 每位使用者有一個版本號，失效時遞增：載入期間若版本變了，查到的值只回給本次呼叫，不放進快取，
+// 避免「先讀到舊值、失效、再把舊值寫回」。交易內的失效在提交後會再做一次，讓提交前重新載入的舊值也被清掉。
+// 失效只發生在執行異動的節點，其他節點的快取項目在 ttl-ms 後過期重新載入，權限異動最晚在這段時間內全部生效
+@Component
+public class PermissionLevelCache {
+
+    private static class Entry {
+        private final Integer level;   // null 為沒有設定權限
+        private final long loadedAt;
+
+        Entry(Integer level, long loadedAt) {
+            this.level = level;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final UserPermissionRepository userPermissionRepository;
+    private final long ttlMs;
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Long> versions = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public PermissionLevelCache(UserPermissionRepository userPermissionRepository, MeterRegistry meterRegistry,
+                                @Value("${minibill.auth.permission-cache.ttl-ms:30000}") long ttlMs) {
+        this.userPermissionRepository = userPermissionRepository;
+        this.ttlMs = ttlMs;
+        this.hitCounter = meterRegistry.counter("minibill.auth.permission.cache", "result", "hit");
+        this.missCounter = meterRegistry.counter("minibill.auth.permission.cache", "result", "miss");
+    }
+
+    // 沒有設定權限時回傳 null
+    public Integer get(UUID userUuid) {
+        Entry entry = entries.get(userUuid);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMs) {
+            hitCounter.increment();
+            return entry.level;
+        }
+        missCounter.increment();
+        return load(userUuid);
+    }
+
+    // 不看快取，直接查資料庫並更新快取；換發 Token 時用，其他節點剛異動的權限也會立即反映
+    public Integer reload(UUID userUuid) {
+        return load(userUuid);
+    }
+
+    private Integer load(UUID userUuid) {
+        long version = versions.getOrDefault(userUuid, 0L);
+        long loadedAt = System.currentTimeMillis();
+        Integer level = userPermissionRepository.findMaxPermissionLevelByUserUuid(userUuid);
+        entries.compute(userUuid, (uuid, current) ->
+                versions.getOrDefault(uuid, 0L) == version ? new Entry(level, loadedAt) : current);
+        return level;
+    }
+
+    public void invalidate(UUID userUuid) {
+        evict(userUuid);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userUuid);
+                }
+            });
+        }
+    }
+
+    private void evict(UUID userUuid) {
+        versions.merge(userUuid, 1L, Long::sum);
+        entries.remove(userUuid);
+    }
+}
@@ -9,6 +9,7 @@ import javax.transaction.Transactional;
 
 import org.springframework.stereotype.Service;
 
+import com.minibill.auth.service.RefreshTokenService;
 import com.minibill.user.dto.UserPermissionDTO;
 import com.minibill.user.model.Permission;
 import com.minibill.user.model.User;
@@ -23,13 +24,19 @@ public class UserPermissionService {
     private final UserRepository userRepository;
     private final PermissionRepository permissionRepository;
     private final UserPermissionRepository userPermissionRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final PermissionLevelCache permissionLevelCache;
 
     public UserPermissionService(UserRepository userRepository,
                                  PermissionRepository permissionRepository,
-                                 UserPermissionRepository userPermissionRepository) {
+                                 UserPermissionRepository userPermissionRepository,
+                                 RefreshTokenService refreshTokenService,
+                                 PermissionLevelCache permissionLevelCache) {
         this.userRepository = userRepository;
         this.permissionRepository = permissionRepository;
         this.userPermissionRepository = userPermissionRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.permissionLevelCache = permissionLevelCache;
     }
 
     @Transactional
@@ -47,6 +54,9 @@ public class UserPermissionService {
         up.setUser(user);
         up.setPermission(permission);
         userPermissionRepository.save(up);
+        // 權限檢查立即改用新等級；Token 撤銷後客戶端換發，Token 內的等級（前端顯示用）也跟著更新
+        permissionLevelCache.invalidate(userId);
+        refreshTokenService.revokeAccessTokens(userId);
     }
 
     public List<UserPermission> getUserPermissions(UUID userId) {
@@ -69,6 +79,8 @@ public class UserPermissionService {
         userPermission.setUser(user);
         userPermission.setPermission(permission);
         userPermissionRepository.save(userPermission);
+        permissionLevelCache.invalidate(userId);
+        refreshTokenService.revokeAccessTokens(userId);
     }
     @Transactional
     public void updateUserPermission(UUID userId, UUID permissionId) {
@@ -86,6 +98,8 @@ public class UserPermissionService {
         userPermission.setUser(user);
         userPermission.setPermission(permission);
         userPermissionRepository.save(userPermission);
+        permissionLevelCache.invalidate(userId);
+        refreshTokenService.revokeAccessTokens(userId);
     }
     public Permission createPermission(Integer level) {
         if (permissionRepository.findByPermissionLevel(level).isPresent()) {
@@ -145,5 +159,7 @@ public class UserPermissionService {
         
         // 刪除該使用者的所有權限
         userPermissionRepository.deleteByUser(user);
+        permissionLevelCache.invalidate(userId);
+        refreshTokenService.revokeAccessTokens(userId);
     }
 }
@@ -0,0 +1,108 @@
+package com.minibill.transactions.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.minibill.catalog.model.Catalog;
+import com.minibill.transactions.dto.TransactionDTO;
+import com.minibill.transactions.model.Transactions;
+import com.minibill.user.model.User;
+
+// === DTO 投影的敘述數：1,000 筆一頁只能有一個 SELECT，避免 N+1 回歸 ===
+@DataJpaTest
+@ActiveProfiles("it")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "MINIBILL_IT_DB_URL", matches = ".+")
+class TransactionsRepositoryStatementCountTest {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionsRepository transactionsRepository;
+
+    private Statistics statistics;
+    private User user;
+    private UUID firstUuid;
+
+    @BeforeEach
+    void seed() {
+        user = new User();
+        user.setAccount("stmt-count-" + UUID.randomUUID());
+        user.setName("Statement Count");
+        user.setPassword("x");
+        user.setActive(true);
+        entityManager.persist(user);
+
+        // 每筆使用不同商品，若投影退回逐筆載入關聯就會多出上千個 SELECT
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Catalog catalog = new Catalog();
+            catalog.setName("item-" + i);
+            catalog.setPriceMinor(100 + i);
+            catalog.setActive(true);
+            entityManager.persist(catalog);
+
+            Transactions transaction = new Transactions();
+            transaction.setUser(user);
+            transaction.setCatalog(catalog);
+            transaction.snapshotCatalog(catalog);
+            transaction.setCurrency(catalog.getCurrency());
+            transaction.setAmountMinor(catalog.getPriceMinor());
+            transaction.setIsPaid(false);
+            entityManager.persist(transaction);
+            if (firstUuid == null) {
+                firstUuid = transaction.getUuid();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void userPageOfThousandRowsIsOneStatement() {
+        List<TransactionDTO> page = transactionsRepository.findFirstPageByUserUuid(
+                user.getUuid(), PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page).hasSize(PAGE_SIZE);
+        assertThat(page).allSatisfy(dto -> assertThat(dto.getCatalogName()).startsWith("item-"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void allTransactionsPageOfThousandRowsIsOneStatement() {
+        List<TransactionDTO> page = transactionsRepository.findFirstPage(PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page).hasSize(PAGE_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void singleLookupIsOneStatement() {
+        assertThat(transactionsRepository.findDtoById(firstUuid)).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
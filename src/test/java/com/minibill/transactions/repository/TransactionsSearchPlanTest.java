@@ -0,0 +1,160 @@
+package com.minibill.transactions.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.minibill.transactions.dto.TransactionSearchFilter;
+
+// === 條件查詢的執行計畫：每種常見篩選/排序都要走對應的複合索引 ===
+// 統計資料設成 1,000 萬筆，讓最佳化器依大表的成本選計畫；表內不需要真的有資料。
+// DBMS_STATS 會自行提交，所以整個測試不包在交易裡，結束後刪除假的統計資料
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.minibill.transactions.repository.TransactionsSearchPlanTest$CapturingInspector")
+@ActiveProfiles("it")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "MINIBILL_IT_DB_URL", matches = ".+")
+class TransactionsSearchPlanTest {
+
+    private static final long TRANSACTION_ROWS = 10_000_000L;
+    private static final long USER_ROWS = 100_000L;
+    private static final int PAGE_SIZE = 50;
+
+    // 記下 Hibernate 實際送出的 SQL
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionsRepository transactionsRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void fakeLargeTableStats() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("BEGIN DBMS_STATS.SET_TABLE_STATS(USER, 'TRANSACTIONS', "
+                + "numrows => " + TRANSACTION_ROWS + ", numblks => 400000, avgrlen => 250); END;");
+        jdbcTemplate.execute("BEGIN DBMS_STATS.SET_TABLE_STATS(USER, 'USERS', "
+                + "numrows => " + USER_ROWS + ", numblks => 2000, avgrlen => 150); END;");
+        setColumnStats("USER_UUID", USER_ROWS);
+        setColumnStats("CATALOG_UUID", 10_000L);
+        setColumnStats("IS_PAID", 2L);
+        setColumnStats("CREATED_AT", TRANSACTION_ROWS);
+        setColumnStats("AMOUNT_MINOR", 100_000L);
+        setColumnStats("DATELINE", 3_650L);
+        for (String index : jdbcTemplate.queryForList(
+                "SELECT index_name FROM user_indexes WHERE table_name = 'TRANSACTIONS'", String.class)) {
+            jdbcTemplate.execute("BEGIN DBMS_STATS.SET_INDEX_STATS(USER, '" + index + "', "
+                    + "numrows => " + TRANSACTION_ROWS + ", numlblks => 40000, numdist => " + TRANSACTION_ROWS
+                    + ", avglblk => 1, avgdblk => 1, clstfct => " + TRANSACTION_ROWS + ", indlevel => 3); END;");
+        }
+        CapturingInspector.SQL.clear();
+    }
+
+    @AfterEach
+    void dropFakeStats() {
+        jdbcTemplate.execute("BEGIN DBMS_STATS.DELETE_TABLE_STATS(USER, 'TRANSACTIONS'); END;");
+        jdbcTemplate.execute("BEGIN DBMS_STATS.DELETE_TABLE_STATS(USER, 'USERS'); END;");
+    }
+
+    @Test
+    void defaultSortUsesCreatedIndex() {
+        assertThat(indexesUsed(new TransactionSearchFilter())).contains("IDX_TRANSACTIONS_CREATED");
+    }
+
+    @Test
+    void catalogFilterUsesCatalogCreatedIndex() {
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        filter.setCatalogId(UUID.randomUUID());
+        assertThat(indexesUsed(filter)).contains("IDX_TRANSACTIONS_CATALOG_CREATED");
+    }
+
+    @Test
+    void userFilterUsesUserCreatedIndex() {
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        filter.setUserId(UUID.randomUUID());
+        assertThat(indexesUsed(filter)).contains("IDX_TRANSACTIONS_USER_CREATED");
+    }
+
+    @Test
+    void paidFilterUsesPaidCreatedIndex() {
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        filter.setIsPaid(false);
+        assertThat(indexesUsed(filter)).contains("IDX_TRANSACTIONS_PAID_CREATED");
+    }
+
+    @Test
+    void amountSortUsesAmountIndex() {
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        filter.setSort(TransactionSearchFilter.Sort.AMOUNT);
+        assertThat(indexesUsed(filter)).contains("IDX_TRANSACTIONS_AMOUNT");
+    }
+
+    @Test
+    void datelineSortUsesDatelineIndex() {
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        filter.setSort(TransactionSearchFilter.Sort.DATELINE);
+        assertThat(indexesUsed(filter)).contains("IDX_TRANSACTIONS_DATELINE");
+    }
+
+    private void setColumnStats(String column, long distinct) {
+        jdbcTemplate.execute("BEGIN DBMS_STATS.SET_COLUMN_STATS(USER, 'TRANSACTIONS', '" + column + "', "
+                + "distcnt => " + distinct + ", density => " + (1.0 / distinct) + ", nullcnt => 0); END;");
+    }
+
+    // 執行一次查詢取得 Hibernate 產生的 SQL，再以 EXPLAIN PLAN 讀出計畫中用到的索引
+    private List<String> indexesUsed(TransactionSearchFilter filter) {
+        transactionsRepository.search(filter, null, PAGE_SIZE);
+        String sql = CapturingInspector.SQL.get(CapturingInspector.SQL.size() - 1);
+        String statementId = "search-" + UUID.randomUUID().toString().substring(0, 8);
+        jdbcTemplate.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + withNamedBinds(sql));
+        try {
+            return jdbcTemplate.queryForList("SELECT object_name FROM plan_table "
+                    + "WHERE statement_id = ? AND operation = 'INDEX'", String.class, statementId);
+        } finally {
+            jdbcTemplate.update("DELETE FROM plan_table WHERE statement_id = ?", statementId);
+        }
+    }
+
+    // EXPLAIN PLAN 不能帶 JDBC 參數，把 ? 換成 :1、:2…（不綁值，最佳化器只依統計資料估算）
+    private static String withNamedBinds(String sql) {
+        StringBuilder out = new StringBuilder(sql.length() + 16);
+        int bind = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                out.append(':').append(++bind);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}